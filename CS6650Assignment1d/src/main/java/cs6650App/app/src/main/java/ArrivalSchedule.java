@@ -0,0 +1,65 @@
+package cs6650App.app.src.main.java;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Open-loop schedule for one phase: the times at which each of the phase's
+ * requests should be sent, at a target rate that can ramp linearly from a
+ * start rate to an end rate over the phase.
+ *
+ * Threads claim the next request slot from the schedule and send it at its
+ * intended time, whether or not earlier requests have come back yet.
+ */
+class ArrivalSchedule {
+
+    private final long startTime; // nanoTime at which the first request is due
+    private final long totalRequests;
+    private final double startRate; // requests per nanosecond at the start of the phase
+    private final double rateSlope; // change in rate per nanosecond, 0 for a constant rate
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    /** @param startTime nanoTime at which the schedule begins
+     * @param totalRequests number of requests sent in the phase
+     * @param startRatePerSecond target requests per second at the start of the phase
+     * @param endRatePerSecond target requests per second at the end of the phase
+     */
+    ArrivalSchedule(long startTime, long totalRequests, double startRatePerSecond, double endRatePerSecond) {
+
+        if (startRatePerSecond <= 0 || endRatePerSecond <= 0) {
+            throw new IllegalArgumentException("Request rates must be > 0");
+        }
+
+        this.startTime = startTime;
+        this.totalRequests = totalRequests;
+        this.startRate = startRatePerSecond / 1000000000;
+
+        double endRate = endRatePerSecond / 1000000000;
+        double phaseDuration = 2 * totalRequests / (startRate + endRate); // average rate is the midpoint
+        this.rateSlope = (endRate - startRate) / phaseDuration;
+    }
+
+    /** Claims the next request slot of the phase
+     * @return index of the slot, or -1 when every request of the phase has been claimed
+     */
+    long claimSlot() {
+
+        long slot = nextSlot.getAndIncrement();
+        return slot < totalRequests ? slot : -1;
+    }
+
+    /** Works out when a request slot is due. The number of requests sent by time t
+     * is startRate * t + rateSlope * t^2 / 2, solved here for t.
+     * @param slot index of the request in the phase
+     * @return nanoTime at which the request should be sent
+     */
+    long intendedStartTime(long slot) {
+
+        double offset;
+
+        if (rateSlope == 0) { // constant rate
+            offset = slot / startRate;
+        } else {
+            offset = (Math.sqrt(startRate * startRate + 2 * rateSlope * slot) - startRate) / rateSlope;
+        }
+        return startTime + (long) offset;
+    }
+}
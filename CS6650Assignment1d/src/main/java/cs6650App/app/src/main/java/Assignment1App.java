@@ -1,5 +1,6 @@
 package cs6650App.app.src.main.java;
 
+import cs6650App.rest.ResponseCache;
 import cs6650App.rest.SimpleGetPostResource;
 import javax.ws.rs.core.Application;
 import java.util.HashSet;
@@ -15,6 +16,12 @@ public class Assignment1App extends Application {
         singletons.add(new SimpleGetPostResource());
     }
 
+    /** @param getCache cache the resource's Get endpoint is answered from */
+    public Assignment1App(ResponseCache getCache) {
+
+        singletons.add(new SimpleGetPostResource(getCache));
+    }
+
     @Override
     public Set<Object> getSingletons() {
         return singletons;
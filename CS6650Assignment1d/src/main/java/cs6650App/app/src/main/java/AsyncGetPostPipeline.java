@@ -0,0 +1,137 @@
+package cs6650App.app.src.main.java;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Event-loop alternative to one thread per user. A single driver task fires a
+ * phase's requests, in the order of the execution plan's operation sequence, through a non-blocking (NIO) HTTP client and
+ * keeps up to a fixed number of them in flight. Responses are handled on a few
+ * I/O threads, and latency is recorded in the completion callback, so no thread
+ * ever blocks waiting for a response.
+ */
+class AsyncGetPostPipeline implements Runnable {
+
+    private static HttpClient httpClient; // shared by every phase
+    private static ExecutorService ioExecutor; // runs the completion callbacks
+
+    private final long totalRequests;
+    private final long phaseStartTime;
+    private final long phaseDuration; // 0 for no time limit
+    private final PlannedOperation[] operationSequence;
+    private final int inFlightLimit;
+    private final Semaphore inFlightPermits;
+    private final CountDownLatch countDownLatchFinish;
+
+    /** @param phase the phase to drive; its users' iterations are all sent by this one task
+     * @param operationSequence the plan's operations, sent in turn
+     * @param phaseStartTime nanoTime at which the phase started, its duration counts from here
+     * @param inFlightLimit max requests waiting for a response at any one time
+     * @param countDownLatchFinish counted down once every response of the phase is back
+     */
+    AsyncGetPostPipeline(PlannedPhase phase, PlannedOperation[] operationSequence, long phaseStartTime,
+                         int inFlightLimit, CountDownLatch countDownLatchFinish) {
+
+        this.totalRequests = phase.getIterations() > 0
+           ? phase.getThreads() * phase.getIterations() * operationSequence.length : Long.MAX_VALUE;
+        this.phaseStartTime = phaseStartTime;
+        this.phaseDuration = phase.getDurationNanos();
+        this.operationSequence = operationSequence;
+        this.inFlightLimit = inFlightLimit;
+        this.inFlightPermits = new Semaphore(inFlightLimit);
+        this.countDownLatchFinish = countDownLatchFinish;
+    }
+
+    /** Creates the shared non-blocking client. Must be called before any pipeline runs.
+     * @param ioThreads number of threads that handle responses and run the callbacks
+     */
+    static void createClient(int ioThreads) {
+
+        ioExecutor = Executors.newFixedThreadPool(ioThreads);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(ioExecutor)
+                .build();
+    }
+
+    /** Releases the I/O threads of the shared client */
+    static void closeClient() {
+
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public void run() {
+
+        HttpRequest[] requests = new HttpRequest[operationSequence.length];
+
+        for (int i = 0; i < requests.length; i++) { // requests are immutable, so each is built once per phase
+
+            PlannedOperation operation = operationSequence[i];
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(operation.getUri()));
+
+            if (operation.getOperation() == RequestBreakdown.POST) {
+                builder.header("Content-Type", "application/json")
+                       .POST(HttpRequest.BodyPublishers.ofString(operation.getBody()));
+            } else {
+                builder.GET();
+            }
+            requests[i] = builder.build();
+        }
+
+        try {
+            for (long i = 0; i < totalRequests; i++) {
+
+                inFlightPermits.acquire(); // wait for room under the in-flight limit
+
+                if (phaseDuration > 0 && System.nanoTime() - phaseStartTime >= phaseDuration) { // time is up
+                    inFlightPermits.release();
+                    break;
+                }
+
+                int next = (int) (i % requests.length); // the plan's operations in turn
+                send(requests[next], operationSequence[next].getOperation());
+            }
+
+            inFlightPermits.acquire(inFlightLimit); // every permit back means every response is in
+
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } finally { // even if sending blew up, so the phase isn't waited on for ever
+            if (countDownLatchFinish != null) {
+                countDownLatchFinish.countDown();
+            }
+        }
+    }
+
+    /** Sends one request without waiting for it. Latency, request count and the
+     * success or failure are recorded when the response completes.
+     * @param request the request to send
+     * @param operation RequestBreakdown.GET or RequestBreakdown.POST
+     */
+    private void send(HttpRequest request, int operation) {
+
+        long requestStartTime = System.nanoTime(); // mark start time to measure latency
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+
+                    long requestFinishTime = System.nanoTime(); // mark finish time in the callback
+
+                    try {
+                        StatisticsGatherer.recordRequest(operation, failure == null ? response.statusCode() : -1,
+                           requestFinishTime - requestStartTime);
+                    } finally { // even if recording failed, or the driver waits for this permit for ever
+                        inFlightPermits.release(); // let the driver send the next request
+                    }
+                });
+    }
+}
@@ -0,0 +1,200 @@
+package cs6650App.app.src.main.java;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** Finds the highest throughput the server sustains within a latency and error SLO,
+ * instead of guessing maxThreads and rerunning the client by hand.
+ *
+ * The search runs a phase per step, each offering more load than the last (an open-loop
+ * arrival rate, or a number of closed-loop threads), and measures the step's own window
+ * of the statistics: throughput, p50/p99 latency and error rate. Load grows by a factor
+ * until a step breaks the SLO, then the search bisects between the last step that met it
+ * and the first that didn't, until the two are within the requested precision. The
+ * latency curve of every step is printed at the end, with the knee: the step with the
+ * highest throughput that still met the SLO.
+ *
+ * An open-loop step also breaks the SLO when the server can't keep up with its rate
+ * (it takes longer than the step's duration to send and answer everything), since open-
+ * loop latencies are measured from the schedule and queueing shows up in the p99.
+ */
+class CapacitySearch {
+
+    static final String PHASE_NAME = "Capacity search";
+
+    /** Runs one step of the search as a phase, and returns once all its requests are answered */
+    interface StepRunner {
+
+        void run(PlannedPhase step);
+    }
+
+    /** What one step measured */
+    private static class Step {
+
+        final double load; // requests/second or threads offered
+        final double throughput;
+        final long p50Nanos;
+        final long p99Nanos;
+        final double errorRate; // 0 to 1
+        final boolean metSlo;
+
+        Step(double load, double throughput, long p50Nanos, long p99Nanos, double errorRate, boolean metSlo) {
+
+            this.load = load;
+            this.throughput = throughput;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.errorRate = errorRate;
+            this.metSlo = metSlo;
+        }
+    }
+
+    private static final double MIN_ACHIEVED_RATE = 0.95; // of the offered rate, for an open-loop step to pass
+
+    private final boolean byRate; // true to search over open-loop rates, false over closed-loop threads
+    private final int openLoopThreads; // threads sending an open-loop step's requests
+    private final long stepDurationNanos;
+    private final long sloP99Nanos;
+    private final double sloErrorRate;
+    private final List<Step> steps = new ArrayList<>();
+
+    /** @param byRate true to search over open-loop rates, false over closed-loop threads
+     * @param openLoopThreads threads sending the requests of an open-loop step
+     * @param stepDurationNanos how long each step offers its load
+     * @param sloP99Nanos highest p99 latency that meets the SLO
+     * @param sloErrorRate highest fraction of failed requests that meets the SLO, 0 to 1
+     */
+    CapacitySearch(boolean byRate, int openLoopThreads, long stepDurationNanos, long sloP99Nanos,
+                   double sloErrorRate) {
+
+        this.byRate = byRate;
+        this.openLoopThreads = openLoopThreads;
+        this.stepDurationNanos = stepDurationNanos;
+        this.sloP99Nanos = sloP99Nanos;
+        this.sloErrorRate = sloErrorRate;
+    }
+
+    /** Runs the search
+     * @param startLoad load of the first step (requests/second, or threads)
+     * @param maxLoad load the search never goes past
+     * @param growthFactor how much more load each step offers until the SLO is broken, more than 1
+     * @param precision bisect until the passing and failing loads are this close, as a fraction
+     * @param runner runs each step
+     */
+    void run(double startLoad, double maxLoad, double growthFactor, double precision, StepRunner runner) {
+
+        if (growthFactor <= 1 || startLoad <= 0 || maxLoad < startLoad) {
+            throw new IllegalArgumentException("Capacity search needs a start load > 0, a max load >= the start"
+               + " and a growth factor > 1");
+        }
+
+        double passingLoad = 0;
+        double failingLoad = Double.POSITIVE_INFINITY;
+
+        double load = startLoad;
+        while (true) { // grow the load until a step breaks the SLO
+
+            if (runStep(load, runner).metSlo) {
+                passingLoad = load;
+            } else {
+                failingLoad = load;
+                break;
+            }
+            if (load >= maxLoad) {
+                break;
+            }
+            double nextLoad = roundLoad(Math.min(load * growthFactor, maxLoad));
+            load = nextLoad > load ? nextLoad : load + 1; // a few threads may not grow by rounding alone
+        }
+
+        while (passingLoad > 0 && failingLoad != Double.POSITIVE_INFINITY
+                && failingLoad - passingLoad > precision * passingLoad) { // bisect to the knee
+
+            double middleLoad = roundLoad((passingLoad + failingLoad) / 2);
+            if (middleLoad <= passingLoad || middleLoad >= failingLoad) {
+                break; // threads can't be split any finer
+            }
+            if (runStep(middleLoad, runner).metSlo) {
+                passingLoad = middleLoad;
+            } else {
+                failingLoad = middleLoad;
+            }
+        }
+    }
+
+    private double roundLoad(double load) {
+
+        return byRate ? load : Math.max(1, Math.round(load));
+    }
+
+    /** Runs one step and measures its window of the statistics */
+    private Step runStep(double load, StepRunner runner) {
+
+        LatencyHistogram histogramBefore = StatisticsGatherer.snapshotLatencyHistogram();
+        RequestCounters.Snapshot countersBefore = StatisticsGatherer.snapshotCounters();
+        long startTime = System.nanoTime();
+
+        PlannedPhase phase = byRate
+           ? new PlannedPhase(PHASE_NAME, openLoopThreads, 0, stepDurationNanos, load)
+           : new PlannedPhase(PHASE_NAME, (int) load, 0, stepDurationNanos, 0);
+        runner.run(phase);
+
+        double wallSeconds = (System.nanoTime() - startTime) / 1e9;
+        LatencyHistogram window = StatisticsGatherer.snapshotLatencyHistogram().intervalSince(histogramBefore);
+        RequestCounters.Snapshot counters = StatisticsGatherer.snapshotCounters().since(countersBefore);
+        long requests = counters.getRequests();
+        long failures = counters.getFailures();
+
+        double throughput = requests / Math.max(wallSeconds, stepDurationNanos / 1e9);
+        double errorRate = requests == 0 ? 1.0 : failures / (double) requests;
+        long p99 = window.getValueAtPercentile(.99);
+
+        boolean metSlo = requests > 0 && p99 <= sloP99Nanos && errorRate <= sloErrorRate
+           && (!byRate || throughput >= MIN_ACHIEVED_RATE * load); // an open-loop step must keep up with its rate
+
+        Step step = new Step(load, throughput, window.getValueAtPercentile(.5), p99, errorRate, metSlo);
+        steps.add(step);
+
+        System.out.println(String.format("[search] %s %.1f: %.1f req/s, p50 %.3f ms, p99 %.3f ms, errors %.2f%% -> %s",
+           byRate ? "rate" : "threads", load, throughput, step.p50Nanos / 1e6, p99 / 1e6, errorRate * 100,
+           metSlo ? "meets SLO" : "breaks SLO"));
+        System.out.println("-------------------------------------------------");
+        return step;
+    }
+
+    /** Prints every step's latency curve, in order of load, and the knee */
+    void printReport() {
+
+        System.out.println("Capacity search: SLO p99 <= " + sloP99Nanos / 1e6 + " ms, errors <= "
+           + sloErrorRate * 100 + "%, " + stepDurationNanos / 1e9 + " s steps by "
+           + (byRate ? "open-loop rate" : "closed-loop threads"));
+
+        String rowFormat = "%12s %12s %12s %12s %10s %6s%n";
+        System.out.printf(rowFormat, byRate ? "Rate req/s" : "Threads", "Achieved/s", "p50 ms", "p99 ms",
+           "Errors %", "SLO");
+
+        List<Step> curve = new ArrayList<>(steps);
+        curve.sort(Comparator.comparingDouble(step -> step.load));
+
+        Step knee = null;
+        for (Step step : curve) {
+            System.out.printf(rowFormat, String.format("%.1f", step.load), String.format("%.1f", step.throughput),
+               String.format("%.3f", step.p50Nanos / 1e6), String.format("%.3f", step.p99Nanos / 1e6),
+               String.format("%.2f", step.errorRate * 100), step.metSlo ? "ok" : "FAIL");
+            if (step.metSlo && (knee == null || step.throughput > knee.throughput)) {
+                knee = step;
+            }
+        }
+
+        if (knee == null) {
+            System.out.println("No step met the SLO, not even the first: start lower or loosen the SLO");
+        } else {
+            System.out.println(String.format("Max sustainable throughput: %.1f req/s at %s %.1f (p99 %.3f ms)",
+               knee.throughput, byRate ? "rate" : "threads", knee.load, knee.p99Nanos / 1e6));
+            if (knee == curve.get(curve.size() - 1)) {
+                System.out.println("Every step met the SLO: the knee is beyond the max load searched");
+            }
+        }
+    }
+}
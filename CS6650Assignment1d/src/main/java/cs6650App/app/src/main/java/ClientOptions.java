@@ -0,0 +1,78 @@
+package cs6650App.app.src.main.java;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Command line inputs for the client. Plain arguments are the positional
+ * inputs (max threads, iterations, ip address, port), and any argument of
+ * the form --name=value is an option, e.g. --sigDigits=3
+ */
+class ClientOptions {
+
+    private final List<String> positionalArgs = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    /** Splits the command line into positional inputs and --name=value options
+     * @param args the command line arguments
+     * @return the parsed inputs
+     */
+    static ClientOptions parse(String[] args) {
+
+        ClientOptions clientOptions = new ClientOptions();
+
+        for (String arg : args) {
+
+            if (arg.startsWith("--")) { // an option
+
+                int separator = arg.indexOf('=');
+
+                if (separator < 0) { // a bare --flag means true
+                    clientOptions.options.put(arg.substring(2), "true");
+                } else {
+                    clientOptions.options.put(arg.substring(2, separator), arg.substring(separator + 1));
+                }
+
+            } else {
+                clientOptions.positionalArgs.add(arg);
+            }
+        }
+        return clientOptions;
+    }
+
+    List<String> getPositionalArgs() {
+
+        return positionalArgs;
+    }
+
+    boolean has(String name) {
+
+        return options.containsKey(name);
+    }
+
+    String getString(String name, String defaultValue) {
+
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+
+        return has(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    long getLong(String name, long defaultValue) {
+
+        return has(name) ? Long.parseLong(options.get(name)) : defaultValue;
+    }
+
+    double getDouble(String name, double defaultValue) {
+
+        return has(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+
+        return has(name) ? Boolean.parseBoolean(options.get(name)) : defaultValue;
+    }
+}
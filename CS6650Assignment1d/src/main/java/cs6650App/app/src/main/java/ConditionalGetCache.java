@@ -0,0 +1,156 @@
+package cs6650App.app.src.main.java;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Keeps the ETag of every GET URI's last response, the way a browser or CDN keeps its
+ * copy, to measure how much a server's response cache (see cs6650App.rest.ResponseCache)
+ * saves the client.
+ *
+ * In revalidate mode every GET is sent as a conditional GET (If-None-Match), and the
+ * server answers with a 304 and no body while the copy is current. In fresh mode a GET
+ * doesn't go out at all while the copy is within the Cache-Control max-age of the response
+ * it came from; it is answered locally, counted as a 200, and revalidated once it is stale.
+ *
+ * Only the ETag and freshness are kept, not the body: the client never looks at what a GET
+ * returns. Full responses, 304s and local answers are timed apart, to report the hit ratio
+ * and roughly how much latency the hits saved compared with a full response. When the
+ * server's copy lives long, the few full responses are mostly each connection's first
+ * request, so the same plan run without the cache is the steadier baseline.
+ */
+class ConditionalGetCache {
+
+    private static final int RECORDERS = 4;
+
+    /** What a response said about caching it, filled in by the transport */
+    static class Validators {
+
+        String etag; // null if the response had none
+        long maxAgeSeconds = -1; // how long the response stays fresh, -1 if it didn't say
+
+        /** @param etagHeader the response's ETag header, null if there is none
+         * @param cacheControlHeader the response's Cache-Control header, null if there is none
+         */
+        void update(String etagHeader, String cacheControlHeader) {
+
+            etag = etagHeader;
+            maxAgeSeconds = -1;
+            if (cacheControlHeader == null) {
+                return;
+            }
+
+            for (String directive : cacheControlHeader.split(",")) {
+                directive = directive.trim().toLowerCase();
+
+                if (directive.equals("no-cache") || directive.equals("no-store")) { // revalidate every time
+                    maxAgeSeconds = 0;
+                    return;
+                }
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        maxAgeSeconds = Long.parseLong(directive.substring("max-age=".length()));
+                    } catch (NumberFormatException e) {
+                        // not a max-age the client can use: treat it as if there was none
+                    }
+                }
+            }
+        }
+    }
+
+    /** The copy of one URI's response */
+    private static class Copy {
+
+        final String etag;
+        final long freshUntil; // nanoTime
+
+        Copy(String etag, long freshUntil) {
+
+            this.etag = etag;
+            this.freshUntil = freshUntil;
+        }
+    }
+
+    private final HttpTransport transport;
+    private final boolean serveFresh; // fresh mode: answer GETs locally within max-age
+    private final Map<String, Copy> copies = new ConcurrentHashMap<>(); // by GET URI
+    private final LatencyRecorder fullLatency; // 200s
+    private final LatencyRecorder revalidatedLatency; // 304s
+    private final LatencyRecorder localLatency; // answered from a fresh copy
+
+    /** @param transport transport the GETs are sent through, must support conditional GETs
+     * @param serveFresh true to answer GETs locally while the copy is fresh, false to revalidate every GET
+     * @param significantDigits decimal precision of the latency histograms
+     */
+    ConditionalGetCache(HttpTransport transport, boolean serveFresh, int significantDigits) {
+
+        this.transport = transport;
+        this.serveFresh = serveFresh;
+        this.fullLatency = new LatencyRecorder(significantDigits, RECORDERS);
+        this.revalidatedLatency = new LatencyRecorder(significantDigits, RECORDERS);
+        this.localLatency = new LatencyRecorder(significantDigits, RECORDERS);
+    }
+
+    /** Answers a GET from the copy if it is fresh, otherwise sends it, conditionally if there is a copy
+     * @param uri the URI to GET
+     * @param requestStartTime nanoTime the latency is measured from
+     * @return the HTTP status: 200 for a full response or a fresh copy, 304 if the copy is still current
+     */
+    int get(String uri, long requestStartTime) {
+
+        Copy copy = copies.get(uri);
+
+        if (serveFresh && copy != null && System.nanoTime() - copy.freshUntil < 0) {
+            localLatency.record(System.nanoTime() - requestStartTime);
+            return 200;
+        }
+
+        Validators validators = new Validators();
+        int status = transport.getConditional(uri, copy != null ? copy.etag : null, validators);
+        long requestFinishTime = System.nanoTime();
+
+        if (status == 304 && copy != null) {
+            revalidatedLatency.record(requestFinishTime - requestStartTime);
+            copies.put(uri, new Copy(validators.etag != null ? validators.etag : copy.etag,
+               freshUntil(requestFinishTime, validators)));
+
+        } else if (status == 200) {
+            fullLatency.record(requestFinishTime - requestStartTime);
+            if (validators.etag != null) {
+                copies.put(uri, new Copy(validators.etag, freshUntil(requestFinishTime, validators)));
+            } else { // nothing to revalidate with
+                copies.remove(uri);
+            }
+        }
+        return status; // anything else is a failure, counted as usual
+    }
+
+    /** @return nanoTime the response stops being fresh, now if it doesn't say it is */
+    private static long freshUntil(long now, Validators validators) {
+
+        return validators.maxAgeSeconds > 0 ? now + validators.maxAgeSeconds * 1000000000L : now;
+    }
+
+    /** Prints the hit ratio, the latency of each kind of answer, and the latency the hits saved */
+    void print() {
+
+        LatencyHistogram full = fullLatency.snapshot();
+        LatencyHistogram revalidated = revalidatedLatency.snapshot();
+        LatencyHistogram local = localLatency.snapshot();
+
+        long hits = revalidated.getTotalCount() + local.getTotalCount();
+        long gets = hits + full.getTotalCount();
+
+        System.out.printf("GET cache (%s): %d GETs, %d full responses, %d revalidated (304), %d answered locally,"
+              + " hit ratio %.1f%%%n", serveFresh ? "fresh" : "revalidate", gets, full.getTotalCount(),
+           revalidated.getTotalCount(), local.getTotalCount(), gets == 0 ? 0.0 : 100.0 * hits / gets);
+        System.out.printf("  Mean latency (ms): full %.3f, revalidated %.3f, local %.3f%n",
+           full.getMean() / 1e6, revalidated.getMean() / 1e6, local.getMean() / 1e6);
+
+        if (full.getTotalCount() > 0 && hits > 0) { // what the hits would have cost as full responses
+            double savedNanos = hits * full.getMean()
+               - revalidated.getTotalCount() * revalidated.getMean() - local.getTotalCount() * local.getMean();
+            System.out.printf("  Latency saved by the hits, against the mean full response (%d of them): about"
+                  + " %.3f s in total, %.3f ms per GET%n", full.getTotalCount(), savedNanos / 1e9, savedNanos / gets / 1e6);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package cs6650App.app.src.main.java;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/** Measures what it costs to open a new connection to a server (TCP connect,
+ * plus the TLS handshake for https), without sending a request. This is the
+ * cost a pooled transport saves on every request after the first, so it is
+ * reported on its own instead of being hidden inside the request latency.
+ */
+class ConnectionSetupProbe {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+    /** Opens and closes the given number of connections to the server of a URI,
+     * recording the setup time of each one
+     * @param uri a URI on the server to connect to
+     * @param probes number of connections to open
+     */
+    static void probe(String uri, int probes) {
+
+        URI target = URI.create(uri);
+        boolean secure = "https".equalsIgnoreCase(target.getScheme());
+        int port = target.getPort() != -1 ? target.getPort() : (secure ? 443 : 80);
+
+        for (int i = 0; i < probes; i++) {
+
+            try {
+                StatisticsGatherer.updateConnectionSetupLatencies(
+                   timeConnectionSetup(target.getHost(), port, secure));
+
+            } catch (IOException e) { // a failed probe only means we have no number for it
+                System.out.println("Connection setup probe failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /** Opens one connection, does the TLS handshake if needed, and closes it again
+     * @return nanoseconds from starting the connect until the connection was ready
+     * @throws IOException if the connection cannot be made
+     */
+    private static long timeConnectionSetup(String host, int port, boolean secure) throws IOException {
+
+        long setupStartTime = System.nanoTime();
+
+        try (Socket socket = new Socket()) {
+
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+
+            if (secure) {
+                try (SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(socket, host, port, true)) {
+
+                    sslSocket.startHandshake();
+                    return System.nanoTime() - setupStartTime;
+                }
+            }
+            return System.nanoTime() - setupStartTime;
+        }
+    }
+}
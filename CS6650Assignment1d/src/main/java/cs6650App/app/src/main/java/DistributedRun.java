@@ -0,0 +1,125 @@
+package cs6650App.app.src.main.java;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Runs the load test from several worker JVMs and merges their results into
+ * one report, for when a single client can't produce the peak load.
+ *
+ * Coordinator: starts N local workers (SimpleGetPostClient with the same inputs),
+ * tells them all to start their first phase at the same wall clock time, waits
+ * for them, then merges their result files:
+ *
+ *   DistributedRun --workers=4 [--startDelayMs=5000] [--resultsDir=.] <client inputs and options>
+ *
+ * Workers on other machines can be started by hand with the same inputs plus
+ * --startAt=<epoch millis> and --results=<file> (clocks synced with NTP). Their
+ * result files are merged with:
+ *
+ *   DistributedRun --merge <results file> <results file> ...
+ *
+ * The merged report has the same statistics printStatistics shows for one client.
+ */
+class DistributedRun {
+
+    private static final List<String> COORDINATOR_OPTIONS =
+       List.of("--workers", "--startDelayMs", "--resultsDir", "--merge");
+
+    /** Starts the workers, waits for them to finish and returns their result files
+     * @param args the coordinator's command line, passed on to the workers minus coordinator options
+     * @param options the parsed command line
+     * @return the result file of every worker
+     */
+    private static List<File> runWorkers(String[] args, ClientOptions options)
+       throws IOException, InterruptedException {
+
+        int workers = options.getInt("workers", 2);
+        File resultsDir = new File(options.getString("resultsDir", "."));
+        long startAt = System.currentTimeMillis() + options.getLong("startDelayMs", 5000); // time for JVMs to start
+
+        List<String> workerArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (COORDINATOR_OPTIONS.stream().noneMatch(option -> arg.equals(option) || arg.startsWith(option + "="))) {
+                workerArgs.add(arg);
+            }
+        }
+
+        List<Process> processes = new ArrayList<>();
+        List<File> resultFiles = new ArrayList<>();
+
+        for (int i = 0; i < workers; i++) {
+
+            File resultFile = new File(resultsDir, "worker-" + i + ".results");
+            resultFiles.add(resultFile);
+
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(SimpleGetPostClient.class.getName());
+            command.addAll(workerArgs);
+            command.add("--startAt=" + startAt);
+            command.add("--results=" + resultFile.getPath());
+
+            processes.add(new ProcessBuilder(command)
+               .redirectErrorStream(true)
+               .redirectOutput(new File(resultsDir, "worker-" + i + ".log")) // each worker's own report
+               .start());
+        }
+
+        System.out.println("Started " + workers + " workers, first phase starts at " + startAt);
+
+        for (int i = 0; i < processes.size(); i++) {
+            int exitCode = processes.get(i).waitFor();
+            System.out.println("Worker " + i + " finished with exit code " + exitCode);
+        }
+        return resultFiles;
+    }
+
+    /** Merges result files into StatisticsGatherer, skipping any that are missing
+     * @param resultFiles files written by workers with --results
+     */
+    private static void mergeResultFiles(List<File> resultFiles) throws IOException {
+
+        for (File resultFile : resultFiles) {
+
+            if (!resultFile.exists()) {
+                System.out.println("No results from " + resultFile + ", leaving it out of the report");
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(resultFile)))) {
+                StatisticsGatherer.mergeResults(in);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        ClientOptions options = ClientOptions.parse(args);
+
+        StatisticsGatherer.configureLatencyPrecision(options.getInt("sigDigits",
+           LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS)); // must match the workers' precision
+
+        List<File> resultFiles = new ArrayList<>();
+
+        if (options.getBoolean("merge", false)) { // merge existing result files
+            for (String path : options.getPositionalArgs()) {
+                resultFiles.add(new File(path));
+            }
+        } else {
+            resultFiles = runWorkers(args, options);
+        }
+
+        mergeResultFiles(resultFiles);
+
+        StatisticsGatherer.updateLoadModel("distributed, merged from " + resultFiles.size() + " workers");
+        StatisticsGatherer.updateThreadMode("see worker logs");
+        StatisticsGatherer.updateTransportName("see worker logs");
+        StatisticsGatherer.printStatistics();
+    }
+}
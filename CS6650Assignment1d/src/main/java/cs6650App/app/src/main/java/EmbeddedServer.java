@@ -0,0 +1,147 @@
+package cs6650App.app.src.main.java;
+
+import cs6650App.rest.ResponseCache;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.HttpHandlerRegistration;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http.server.Request;
+import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+
+/** Runs Assignment1App (SimpleGetPostResource) on an embedded Grizzly server, so the
+ * client has a known-fast local target at http://host:port/testing/tests/.
+ *
+ * Requests are handled either on a fixed pool of worker threads or on a new virtual
+ * thread each. Keep-alive connections are never closed by the server for having served
+ * too many requests, so a pooled client keeps reusing them. With --staticGet the Get
+ * endpoint is answered straight from Grizzly with a preallocated response buffer,
+ * skipping JAX-RS, to see how much of the server's time goes to the framework.
+ * Otherwise the Get endpoint is answered from a ResponseCache, with an ETag clients
+ * can revalidate their copy with.
+ */
+class EmbeddedServer {
+
+    static final String CONTEXT_PATH = "/testing";
+
+    private static final byte[] ALIVE = "alive".getBytes(StandardCharsets.US_ASCII); // what getAlive returns
+
+    /** Answers every request with the same preallocated body. The bytes are wrapped, not
+     * copied, into the buffer that is written to the connection.
+     */
+    private static class StaticResponseHandler extends HttpHandler {
+
+        private final byte[] body;
+
+        StaticResponseHandler(byte[] body) {
+
+            this.body = body;
+        }
+
+        @Override
+        public void service(Request request, Response response) throws Exception {
+
+            response.setContentType("text/plain");
+            response.setContentLength(body.length);
+
+            Buffer buffer = Buffers.wrap(response.getRequest().getContext().getMemoryManager(), body);
+            buffer.allowBufferDispose(false); // the array is shared by every response
+            response.getOutputBuffer().writeBuffer(buffer);
+        }
+    }
+
+    /** Creates and starts the server
+     * @param host address to listen on
+     * @param port port to listen on
+     * @param workers "virtual" for a virtual thread per request, otherwise the size of the worker pool
+     * @param selectors number of selector (I/O) threads
+     * @param keepAliveIdleSeconds how long an idle kept-alive connection stays open, -1 for ever
+     * @param staticGet answer the Get endpoint from a preallocated buffer instead of through JAX-RS
+     * @param getCache cache the Get endpoint is answered from through JAX-RS
+     * @return the running server
+     * @throws IOException if the server can't be started
+     */
+    static HttpServer start(String host, int port, String workers, int selectors,
+         int keepAliveIdleSeconds, boolean staticGet, ResponseCache getCache) throws IOException {
+
+        URI baseUri = URI.create("http://" + host + ":" + port + CONTEXT_PATH + "/");
+        ResourceConfig resourceConfig = ResourceConfig.forApplication(new Assignment1App(getCache));
+
+        HttpServer server = GrizzlyHttpServerFactory.createHttpServer(baseUri, resourceConfig, false);
+
+        NetworkListener listener = server.getListener("grizzly");
+        listener.getKeepAlive().setMaxRequestsCount(-1); // never close a connection for serving too much
+        listener.getKeepAlive().setIdleTimeoutInSeconds(keepAliveIdleSeconds);
+
+        TCPNIOTransport transport = listener.getTransport();
+        transport.setTcpNoDelay(true); // small responses go out at once
+        transport.setSelectorRunnersCount(selectors);
+
+        if ("virtual".equalsIgnoreCase(workers)) {
+            transport.setWorkerThreadPool(Executors.newVirtualThreadPerTaskExecutor());
+        } else {
+            int poolSize = Integer.parseInt(workers);
+            transport.getWorkerThreadPoolConfig().setCorePoolSize(poolSize).setMaxPoolSize(poolSize);
+        }
+
+        if (staticGet) { // more specific than the JAX-RS context path, so it is matched first
+            server.getServerConfiguration().addHttpHandler(new StaticResponseHandler(ALIVE),
+               HttpHandlerRegistration.builder().contextPath(CONTEXT_PATH + "/tests/test").urlPattern("").build());
+        }
+
+        server.start();
+        return server;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        /* cmd line args:
+         * -port to listen on (default 8080)
+         *
+         * options (--name=value):
+         * --host: address to listen on (default 0.0.0.0)
+         * --workers: 'virtual' for a virtual thread per request, or the size of the worker pool
+         *            (default 2 per CPU)
+         * --selectors: number of selector (I/O) threads (default 1 per CPU)
+         * --keepAliveIdle: seconds an idle kept-alive connection stays open, -1 for ever (default 30)
+         * --staticGet: serve the Get endpoint from a preallocated buffer, bypassing JAX-RS
+         * --getCacheTtl: seconds a cached Get response is served before it is computed again,
+         *                0 to compute it every time (default 60); clients can revalidate with ETags either way
+         * --getCacheSize: most Get responses cached, least recently used evicted first (default 1024)
+         */
+
+        ClientOptions options = ClientOptions.parse(args);
+        List<String> inputs = options.getPositionalArgs();
+
+        int port = inputs.isEmpty() ? 8080 : Integer.parseInt(inputs.get(0));
+        int cpus = Runtime.getRuntime().availableProcessors();
+
+        ResponseCache getCache = new ResponseCache(options.getInt("getCacheSize", ResponseCache.DEFAULT_MAX_ENTRIES),
+           options.getInt("getCacheTtl", ResponseCache.DEFAULT_TTL_SECONDS));
+
+        HttpServer server = start(options.getString("host", "0.0.0.0"), port,
+           options.getString("workers", String.valueOf(2 * cpus)), options.getInt("selectors", cpus),
+           options.getInt("keepAliveIdle", 30), options.getBoolean("staticGet", false), getCache);
+
+        System.out.println("Serving Assignment1App at http://localhost:" + port + CONTEXT_PATH + "/tests/");
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> { // Ctrl-C stops the server cleanly
+            server.shutdownNow();
+            System.out.println("Get cache: " + getCache.getHits() + " hits, " + getCache.getMisses()
+               + " misses, " + getCache.getNotModified() + " answered 304 Not Modified");
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+}
@@ -0,0 +1,108 @@
+package cs6650App.app.src.main.java;
+
+import java.util.Arrays;
+
+/** Exact latency statistics of every sample of a run, for when the histograms' few
+ * significant digits aren't enough (e.g. comparing two runs' p99.99 closely).
+ *
+ * The samples are kept as a primitive long[] of nanos: one parallel sort (fork-join,
+ * across all CPUs) puts them in order, and one pass over the sorted array gives the
+ * mean, standard deviation, min and max. Every percentile is then an array lookup, so
+ * a report over 100 million samples takes seconds. The array is 8 bytes per sample.
+ */
+class ExactLatencyAnalysis {
+
+    private final long[] sorted;
+    private final int count;
+    private final double mean;
+    private final double standardDeviation;
+    private final long sortNanos; // how long the sort took
+
+    /** Sorts the samples in place and works out their statistics
+     * @param samples latencies in nanos; the first count of them are sorted in place
+     * @param count number of samples in the array
+     */
+    ExactLatencyAnalysis(long[] samples, int count) {
+
+        long sortStart = System.nanoTime();
+        Arrays.parallelSort(samples, 0, count);
+        this.sortNanos = System.nanoTime() - sortStart;
+
+        this.sorted = samples;
+        this.count = count;
+
+        double runningMean = 0;
+        double squaredDeviations = 0;
+        for (int i = 0; i < count; i++) { // one pass for the mean and the variance (Welford's method,
+            double delta = samples[i] - runningMean; // which doesn't lose precision to big sums of squares)
+            runningMean += delta / (i + 1);
+            squaredDeviations += delta * (samples[i] - runningMean);
+        }
+
+        this.mean = runningMean;
+        this.standardDeviation = count == 0 ? 0.0 : Math.sqrt(squaredDeviations / count);
+    }
+
+    int getCount() {
+
+        return count;
+    }
+
+    double getMean() {
+
+        return mean;
+    }
+
+    double getStandardDeviation() {
+
+        return standardDeviation;
+    }
+
+    long getMin() {
+
+        return count == 0 ? 0L : sorted[0];
+    }
+
+    long getMax() {
+
+        return count == 0 ? 0L : sorted[count - 1];
+    }
+
+    long getSortNanos() {
+
+        return sortNanos;
+    }
+
+    /** Finds the sample that the given fraction of samples are less than or equal to
+     * (nearest rank, like LatencyHistogram.getValueAtPercentile)
+     * @param percentile what percentile to calculate (e.g., .99 for 99th percentile), 0 to 1
+     * @return the sample at that percentile in nanos, or 0 if there are none
+     */
+    long getValueAtPercentile(double percentile) {
+
+        if (count == 0) {
+            return 0L;
+        }
+
+        double boundedPercentile = Math.min(Math.max(percentile, 0.0), 1.0);
+        long rank = Math.max(1L, (long) Math.ceil(boundedPercentile * count));
+        return sorted[(int) Math.min(rank, count) - 1];
+    }
+
+    /** Prints the exact statistics, in seconds like the rest of the report */
+    void print() {
+
+        System.out.println("Exact latency statistics, " + count + " samples (sorted in "
+           + String.format("%.3f", sortNanos / 1e9) + " s):");
+        System.out.printf("%-12s %14.9f%n", "Min", getMin() / 1e9);
+
+        double[] percentiles = {.50, .90, .95, .99, .999, .9999};
+        String[] labels = {"50%", "90%", "95%", "99%", "99.9%", "99.99%"};
+        for (int i = 0; i < percentiles.length; i++) {
+            System.out.printf("%-12s %14.9f%n", labels[i], getValueAtPercentile(percentiles[i]) / 1e9);
+        }
+        System.out.printf("%-12s %14.9f%n", "Max", getMax() / 1e9);
+        System.out.printf("%-12s %14.9f%n", "Mean", mean / 1e9);
+        System.out.printf("%-12s %14.9f%n", "Std dev", standardDeviation / 1e9);
+    }
+}
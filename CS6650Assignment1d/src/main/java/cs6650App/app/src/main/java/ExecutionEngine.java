@@ -0,0 +1,98 @@
+package cs6650App.app.src.main.java;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Runs the simulated users of each phase, one thread per user, either on
+ * platform threads (one OS thread and stack each) or on virtual threads, which
+ * are scheduled by the JVM onto a few carrier threads and only use heap for
+ * their stacks. Virtual threads let a single client simulate 100k+ users.
+ *
+ * Also samples the memory footprint of the client, so the two modes can be compared.
+ */
+class ExecutionEngine {
+
+    static final String PLATFORM = "platform";
+    static final String VIRTUAL = "virtual";
+
+    private final String mode;
+    private final ExecutorService executorService;
+
+    /** @param mode PLATFORM or VIRTUAL */
+    ExecutionEngine(String mode) {
+
+        this.mode = mode;
+
+        switch (mode) {
+
+            case PLATFORM:
+                executorService = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory());
+                break;
+            case VIRTUAL:
+                executorService = Executors.newVirtualThreadPerTaskExecutor();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown thread mode: " + mode
+                   + " (expected " + PLATFORM + " or " + VIRTUAL + ")");
+        }
+    }
+
+    String getMode() {
+
+        return mode;
+    }
+
+    /** Starts a task on a new thread of this engine's kind
+     * @param task the simulated user to run
+     */
+    void execute(Runnable task) {
+
+        executorService.execute(task);
+    }
+
+    /** Waits for the started tasks to end and releases the executor */
+    void close() {
+
+        executorService.close();
+    }
+
+    /*=================================== MEMORY ======================================*/
+
+    /** @return bytes of heap currently in use */
+    static long usedHeapBytes() {
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** @return number of live platform threads (virtual threads are not counted) */
+    static int livePlatformThreads() {
+
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    /** Reads the resident set size of the process, which includes the thread stacks
+     * that the heap numbers leave out. Only available on Linux.
+     * @return resident bytes, or -1 if they can't be read on this OS
+     */
+    static long residentSetBytes() {
+
+        Path status = Paths.get("/proc/self/status");
+
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) { // e.g. "VmRSS:   123456 kB"
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1L;
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,221 @@
+package cs6650App.app.src.main.java;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/** What a run does: its phases, and the mix of requests every simulated user sends.
+ *
+ * A plan is built once before the run, either from a scenario file or from the
+ * command line inputs (the default Warmup/Loading/Peak/Cooldown, one Get and one
+ * Post). The weighted mix of operations is expanded up front into a fixed
+ * operation sequence, so while the run is going the runners only step through an
+ * array and never allocate or look anything up.
+ *
+ * Scenario files are properties files, e.g.:
+ *
+ *   phases = warmup, peak
+ *   phase.warmup.name = Warmup Phase
+ *   phase.warmup.threads = 10
+ *   phase.warmup.iterations = 100      (passes through the operation sequence per user)
+ *   phase.peak.threads = 100
+ *   phase.peak.duration = 5m           (ms, s, m or h; ends the phase even if iterations remain)
+ *   phase.peak.rate = 2000             (optional: open-loop at 2000 requests/second)
+ *   phase.peak.rampUp = 30s            (continuous mode: reach 100 users over 30s ...)
+ *   phase.peak.rampSteps = 3           (... in 3 steps; linear if not given)
+ *
+ *   operations = read, write
+ *   operation.read.method = GET
+ *   operation.read.uri = https://example.com/prod/
+ *   operation.read.weight = 3
+ *   operation.write.method = POST
+ *   operation.write.uri = https://example.com/prod/
+ *   operation.write.body = { 'alive':'alive' }
+ *   operation.write.weight = 1
+ *   operation.write.thinkTime = 100ms  (closed-loop pause after the request)
+ */
+class ExecutionPlan {
+
+    private final List<PlannedPhase> phases;
+    private final PlannedOperation[] operationSequence;
+
+    /** @param phases the phases, in the order they run
+     * @param operations the kinds of request users send
+     * @param weights relative weight of each operation in the mix, at least 1
+     */
+    ExecutionPlan(List<PlannedPhase> phases, List<PlannedOperation> operations, List<Integer> weights) {
+
+        if (phases.isEmpty() || operations.isEmpty()) {
+            throw new IllegalArgumentException("A plan needs at least one phase and one operation");
+        }
+        this.phases = Collections.unmodifiableList(new ArrayList<>(phases));
+        this.operationSequence = expandWeights(operations, weights);
+    }
+
+    List<PlannedPhase> getPhases() {
+
+        return phases;
+    }
+
+    List<String> getPhaseNames() {
+
+        List<String> phaseNames = new ArrayList<>();
+        for (PlannedPhase phase : phases) {
+            phaseNames.add(phase.getName());
+        }
+        return phaseNames;
+    }
+
+    /** @return the operations one iteration of a user sends, in order. Shared, don't modify. */
+    PlannedOperation[] getOperationSequence() {
+
+        return operationSequence;
+    }
+
+    /** Spreads the operations over a sequence as long as the sum of the (reduced)
+     * weights, each appearing as often as its weight and as evenly as possible
+     * (smooth weighted round robin), e.g. weights 3:1 give read, read, write, read
+     */
+    private static PlannedOperation[] expandWeights(List<PlannedOperation> operations, List<Integer> weights) {
+
+        int divisor = 0;
+        for (int weight : weights) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Operation weights must be >= 1");
+            }
+            divisor = gcd(divisor, weight);
+        }
+
+        int[] reducedWeights = new int[weights.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            reducedWeights[i] = weights.get(i) / divisor;
+            totalWeight += reducedWeights[i];
+        }
+
+        PlannedOperation[] sequence = new PlannedOperation[totalWeight];
+        int[] currentWeights = new int[reducedWeights.length];
+
+        for (int slot = 0; slot < totalWeight; slot++) {
+
+            int chosen = 0;
+            for (int i = 0; i < reducedWeights.length; i++) {
+                currentWeights[i] += reducedWeights[i];
+                if (currentWeights[i] > currentWeights[chosen]) {
+                    chosen = i;
+                }
+            }
+            currentWeights[chosen] -= totalWeight;
+            sequence[slot] = operations.get(chosen);
+        }
+        return sequence;
+    }
+
+    private static int gcd(int a, int b) {
+
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /*=================================== SCENARIO FILES ==============================*/
+
+    /** Reads a scenario file and compiles it into a plan
+     * @param scenarioFile properties file describing the phases and operations
+     * @return the compiled plan
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the scenario is incomplete or invalid
+     */
+    static ExecutionPlan load(Path scenarioFile) throws IOException {
+
+        Properties scenario = new Properties();
+        try (Reader reader = Files.newBufferedReader(scenarioFile, StandardCharsets.UTF_8)) {
+            scenario.load(reader);
+        }
+
+        List<PlannedPhase> phases = new ArrayList<>();
+        for (String id : list(scenario, "phases")) {
+
+            String prefix = "phase." + id + ".";
+            phases.add(new PlannedPhase(
+               scenario.getProperty(prefix + "name", id),
+               Integer.parseInt(required(scenario, prefix + "threads")),
+               Long.parseLong(scenario.getProperty(prefix + "iterations", "0")),
+               parseDurationNanos(scenario.getProperty(prefix + "duration", "0")),
+               Double.parseDouble(scenario.getProperty(prefix + "rate", "0")),
+               parseDurationNanos(scenario.getProperty(prefix + "rampUp", "0")),
+               Integer.parseInt(scenario.getProperty(prefix + "rampSteps", "0").trim())));
+        }
+
+        List<PlannedOperation> operations = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String id : list(scenario, "operations")) {
+
+            String prefix = "operation." + id + ".";
+            String method = scenario.getProperty(prefix + "method", "GET").trim().toUpperCase();
+
+            int operation;
+            switch (method) {
+                case "GET":
+                    operation = RequestBreakdown.GET;
+                    break;
+                case "POST":
+                    operation = RequestBreakdown.POST;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Operation " + id + ": unsupported method " + method);
+            }
+
+            operations.add(new PlannedOperation(id, operation, required(scenario, prefix + "uri"),
+               scenario.getProperty(prefix + "body", ""),
+               parseDurationNanos(scenario.getProperty(prefix + "thinkTime", "0"))));
+            weights.add(Integer.parseInt(scenario.getProperty(prefix + "weight", "1").trim()));
+        }
+
+        return new ExecutionPlan(phases, operations, weights);
+    }
+
+    private static List<String> list(Properties scenario, String key) {
+
+        List<String> ids = new ArrayList<>();
+        for (String id : required(scenario, key).split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    private static String required(Properties scenario, String key) {
+
+        String value = scenario.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Scenario is missing " + key);
+        }
+        return value.trim();
+    }
+
+    /** Parses a duration such as 250ms, 30s, 5m or 2h (a bare number is milliseconds)
+     * @param duration the duration text
+     * @return the duration in nanoseconds
+     */
+    static long parseDurationNanos(String duration) {
+
+        String text = duration.trim().toLowerCase();
+
+        if (text.endsWith("ms")) {
+            return Long.parseLong(text.substring(0, text.length() - 2).trim()) * 1000000L;
+        } else if (text.endsWith("s")) {
+            return Long.parseLong(text.substring(0, text.length() - 1).trim()) * 1000000000L;
+        } else if (text.endsWith("m")) {
+            return Long.parseLong(text.substring(0, text.length() - 1).trim()) * 60000000000L;
+        } else if (text.endsWith("h")) {
+            return Long.parseLong(text.substring(0, text.length() - 1).trim()) * 3600000000000L;
+        }
+        return Long.parseLong(text) * 1000000L;
+    }
+}
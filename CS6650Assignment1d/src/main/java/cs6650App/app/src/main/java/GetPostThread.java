@@ -2,38 +2,80 @@ package cs6650App.app.src.main.java;
 
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
 import javax.ws.rs.*;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.core.Response;
 
 /**
- * Thread that is created based on below inputs and makes
- * one Get and one Post request per iteration
+ * Simulated user that is created based on below inputs and steps through
+ * the execution plan's operation sequence once per iteration (by default
+ * one Get and one Post). Runs on a thread of the ExecutionEngine (platform
+ * or virtual).
  */
-public class GetPostThread extends Thread {
+public class GetPostThread implements Runnable {
 
-    private int numIterations;
-    private String ipAddress;
-    private String serverPort;
+    private long numIterations; // passes through the operation sequence, Long.MAX_VALUE for no limit
+    private long phaseStartTime; // nanoTime at which the phase started
+    private long phaseDuration; // nanos the phase runs for, 0 for no time limit
+    private PlannedOperation[] operationSequence;
     private CountDownLatch countDownLatchStart;
     private CountDownLatch countDownLatchFinish;
+    private static HttpTransport transport; // shared by all the threads of a run
+    private static PostBatcher postBatcher; // coalesces the threads' POSTs, null to send each on its own
+    private static ConditionalGetCache getCache; // keeps the GETs' ETags, null to send plain GETs
 
+    static final String DEFAULT_POST_URI = "https://ft2eupd7k8.execute-api.us-west-2.amazonaws.com/prod/";
+    static final String DEFAULT_GET_URI = "https://ap0vyszy0a.execute-api.us-west-2.amazonaws.com/prod/";
 
-    GetPostThread(int numIterations,
-                  String ipAddress, String serverPort, CountDownLatch
-                          countDownLatchStart, CountDownLatch countDownLatchFinish) {
 
-        this.numIterations = numIterations;
-        this.ipAddress = ipAddress;
-        this.serverPort = serverPort;
+    /**
+     * @param phase the phase this user runs in
+     * @param operationSequence the plan's operations, sent in order once per iteration
+     * @param phaseStartTime nanoTime at which the phase started, its duration counts from here
+     * @param countDownLatchStart counted down once the user is started
+     * @param countDownLatchFinish counted down once the user is done
+     */
+    GetPostThread(PlannedPhase phase, PlannedOperation[] operationSequence, long phaseStartTime,
+                  CountDownLatch countDownLatchStart, CountDownLatch countDownLatchFinish) {
+
+        this.numIterations = phase.getIterations() > 0 ? phase.getIterations() : Long.MAX_VALUE;
+        this.phaseStartTime = phaseStartTime;
+        this.phaseDuration = phase.getDurationNanos();
+        this.operationSequence = operationSequence;
         this.countDownLatchStart = countDownLatchStart;
         this.countDownLatchFinish = countDownLatchFinish;
 
     }
 
+    /**
+     * Sets the transport every thread sends its requests through
+     *
+     * @param httpTransport the transport to use, shared by all threads
+     */
+    static void setTransport(HttpTransport httpTransport) {
+
+        transport = httpTransport;
+    }
+
+    /**
+     * Sets the batcher every thread's POSTs are coalesced through
+     *
+     * @param batcher the batcher to use, or null to send each POST on its own
+     */
+    static void setPostBatcher(PostBatcher batcher) {
+
+        postBatcher = batcher;
+    }
+
+    /**
+     * Sets the cache every thread's GETs are revalidated or answered from
+     *
+     * @param cache the cache to use, or null to send plain GETs
+     */
+    static void setGetCache(ConditionalGetCache cache) {
+
+        getCache = cache;
+    }
+
     /**
      * Makes a get request to a specified URI
      *
@@ -42,24 +84,28 @@ public class GetPostThread extends Thread {
      */
     public static void getText(String GET_URI) throws ClientErrorException {
 
-        Client client = ClientBuilder.newClient(); // create new client
-
-        WebTarget target = client.target(GET_URI); // and set it up to connect
+        getText(GET_URI, System.nanoTime()); // latency is measured from when the request is sent
+    }
 
-        Response response;
+    /**
+     * Makes a get request to a specified URI, measuring latency from the time
+     * the request was meant to be sent rather than when it actually was
+     *
+     * @param GET_URI specified URI to make the request
+     * @param requestStartTime nanoTime at which the request was scheduled to be sent
+     * @throws ClientErrorException when client cannot connect
+     */
+    static void getText(String GET_URI, long requestStartTime) throws ClientErrorException {
 
-        long requestStartTime = System.nanoTime(); // mark start time to measure latency
+        int status;
 
-            response = target.request().get(); // send the request
+            status = getCache != null // send the request and read the response
+               ? getCache.get(GET_URI, requestStartTime) : transport.get(GET_URI);
 
         long requestFinishTime = System.nanoTime(); // mark finish time to measure latency
 
-        StatisticsGatherer.updateLatenciesList((requestFinishTime - requestStartTime)
-                / (float) 1000000000); // update the list of request latency measurements
-
-        StatisticsGatherer.updateRequestStatistics(); // update number of requests
-
-        StatisticsGatherer.updateResponseSuccessOrFailure(response); // update success or failure counter
+        StatisticsGatherer.recordRequest(RequestBreakdown.GET, status, // record latency in nanos, count
+                requestFinishTime - requestStartTime); // and success or failure
      }
 
     /**
@@ -71,48 +117,76 @@ public class GetPostThread extends Thread {
      */
     public static void doPostText(String POST_URI, String textToPost) throws ClientErrorException { // textToPost hardcoded for now
 
-        Client client = ClientBuilder.newClient();  // create new client
-
-        WebTarget baseTarget = client.target(POST_URI); // and set it up to connect
+        doPostText(POST_URI, textToPost, System.nanoTime()); // latency is measured from when the request is sent
+    }
 
-        Response myPostResponse;
+    /**
+     * "Posts" some text to a specified URI, measuring latency from the time
+     * the request was meant to be sent rather than when it actually was
+     *
+     * @param POST_URI specified URI to make the request
+     * @param textToPost text to post
+     * @param requestStartTime nanoTime at which the request was scheduled to be sent
+     */
+    static void doPostText(String POST_URI, String textToPost, long requestStartTime) throws ClientErrorException {
 
-        long requestStartTime = System.nanoTime(); // mark start time to measure latency
+        int postStatus;
 
-            myPostResponse = baseTarget // send the request
-                    .request()
-                    .post(Entity.json(textToPost));
+            postStatus = postBatcher != null // send the request and read the response
+               ? postBatcher.post(POST_URI, textToPost) : transport.post(POST_URI, textToPost);
 
 
         long requestFinishTime = System.nanoTime(); // mark finish time to measure latency
 
-        StatisticsGatherer.updateLatenciesList((requestFinishTime - requestStartTime)
-                / (float) 1000000000); // update the list of request latency measurements
-
-        StatisticsGatherer.updateRequestStatistics(); // update number of requests
-
-        StatisticsGatherer.updateResponseSuccessOrFailure(myPostResponse); // update success or failure counter
+        StatisticsGatherer.recordRequest(RequestBreakdown.POST, postStatus, // record latency in nanos, count
+                requestFinishTime - requestStartTime); // and success or failure
     }
 
 
-    @Override
-    public void run() { // some hardcoded stuff for now
-
-         //  String POST_URI = "http://" + ipAddress + ":" + serverPort + "/testing/tests/"; // compose the URI based on the inputs
-         //  String GET_URI = POST_URI + "test";
-
-       String POST_URI = "https://ft2eupd7k8.execute-api.us-west-2.amazonaws.com/prod/";
-
-       String GET_URI = "https://ap0vyszy0a.execute-api.us-west-2.amazonaws.com/prod/";
-
-        for (int i = 0; i < numIterations; i++) { // for each iteration based on # of iterations input
-
-            getText(GET_URI); // make get request
-            doPostText(POST_URI, "{ 'alive':'alive' }"); // make post request
+    /**
+     * Sends one planned request, measuring latency from the given start time
+     *
+     * @param operation what to send and where
+     * @param requestStartTime nanoTime the latency is measured from
+     */
+    static void execute(PlannedOperation operation, long requestStartTime) throws ClientErrorException {
 
+        if (operation.getOperation() == RequestBreakdown.POST) {
+            doPostText(operation.getUri(), operation.getBody(), requestStartTime);
+        } else {
+            getText(operation.getUri(), requestStartTime);
         }
-        if (countDownLatchFinish != null) { // decrement the countdown if it's not down to 0 already
-            countDownLatchFinish.countDown();
+    }
+
+    @Override
+    public void run() {
+
+        try {
+            iterations:
+            for (long i = 0; i < numIterations; i++) { // for each iteration based on # of iterations input
+
+                for (PlannedOperation operation : operationSequence) { // make the plan's requests in order
+
+                    if (phaseDuration > 0 && System.nanoTime() - phaseStartTime >= phaseDuration) { // time is up
+                        break iterations;
+                    }
+
+                    execute(operation, System.nanoTime());
+
+                    long thinkTime = operation.getThinkTimeNanos();
+                    if (thinkTime > 0) { // pause like a user would before the next request
+                        long thinkUntil = System.nanoTime() + thinkTime;
+                        long waitTime;
+                        while ((waitTime = thinkUntil - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(waitTime);
+                        }
+                    }
+                }
+            }
+        } finally { // even if a request blew up, so the phase isn't waited on for ever
+            if (countDownLatchFinish != null) { // decrement the countdown if it's not down to 0 already
+                countDownLatchFinish.countDown();
+            }
         }
 
     }
@@ -0,0 +1,145 @@
+package cs6650App.app.src.main.java;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Sends requests through java.net.http clients that speak HTTP/2, so the requests of
+ * many threads are multiplexed as concurrent streams over a few connections instead
+ * of each thread needing a kept-alive connection (and a handshake) of its own.
+ *
+ * Each client holds one HTTP/2 connection per server, and threads are spread round
+ * robin over the clients. A client only takes maxStreams requests at a time; the rest
+ * wait for a free stream, the way they would wait for a pooled connection. https
+ * servers negotiate HTTP/2 through ALPN, and one that can't speak it is answered over
+ * HTTP/1.1. Plain http URIs are forced to HTTP/1.1, because the h2c upgrade the JDK
+ * client would try instead never answers a POST on servers without HTTP/2, e.g. the
+ * embedded Grizzly server. Comparing this transport with the others against the embedded
+ * server therefore measures java.net.http's HTTP/1.1 connections, not h2c. The
+ * transport's name reports how many responses came back over each version, and a
+ * request that gets no response within the timeout fails rather than hangs.
+ */
+class Http2Transport implements HttpTransport {
+
+    static final int DEFAULT_CONNECTIONS = 1;
+    static final int DEFAULT_MAX_STREAMS = 100;
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30); // until the response headers
+
+    private final HttpClient[] clients;
+    private final Semaphore[] streams; // free streams of each client
+    private final int maxStreams;
+    private final AtomicLong nextClient = new AtomicLong();
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder http1Responses = new LongAdder(); // the server didn't negotiate HTTP/2
+
+    /** @param connections clients, i.e. HTTP/2 connections per server, the streams are spread over
+     * @param maxStreams most concurrent streams (requests in flight) per connection
+     */
+    Http2Transport(int connections, int maxStreams) {
+
+        this.maxStreams = maxStreams;
+        this.clients = new HttpClient[connections];
+        this.streams = new Semaphore[connections];
+
+        for (int i = 0; i < connections; i++) {
+            clients[i] = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(CONNECT_TIMEOUT)
+                    .build();
+            streams[i] = new Semaphore(maxStreams);
+        }
+    }
+
+    @Override
+    public int get(String uri) {
+
+        return send(newRequest(uri).GET().build(), null);
+    }
+
+    @Override
+    public int getConditional(String uri, String ifNoneMatch, ConditionalGetCache.Validators validators) {
+
+        HttpRequest.Builder request = newRequest(uri).GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return send(request.build(), validators);
+    }
+
+    @Override
+    public int post(String uri, String body) {
+
+        return send(newRequest(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), null);
+    }
+
+    /** @return a request to the URI with the timeout, over HTTP/1.1 if the URI is plain http */
+    private static HttpRequest.Builder newRequest(String uri) {
+
+        URI target = URI.create(uri);
+        HttpRequest.Builder request = HttpRequest.newBuilder(target).timeout(REQUEST_TIMEOUT);
+
+        if ("http".equalsIgnoreCase(target.getScheme())) { // no h2c upgrade, see above
+            request.version(HttpClient.Version.HTTP_1_1);
+        }
+        return request;
+    }
+
+    /** Sends a request on the next connection as soon as it has a free stream
+     * @param validators where the response's caching headers are put, null if they aren't wanted
+     * @return the HTTP status of the response, -1 if there was none
+     */
+    private int send(HttpRequest request, ConditionalGetCache.Validators validators) {
+
+        int client = (int) (nextClient.getAndIncrement() % clients.length);
+
+        streams[client].acquireUninterruptibly();
+        try {
+            HttpResponse<Void> response = clients[client].send(request, HttpResponse.BodyHandlers.discarding());
+
+            if (response.version() == HttpClient.Version.HTTP_2) {
+                http2Responses.increment();
+            } else {
+                http1Responses.increment();
+            }
+            if (validators != null) {
+                validators.update(response.headers().firstValue("ETag").orElse(null),
+                   response.headers().firstValue("Cache-Control").orElse(null));
+            }
+            return response.statusCode();
+
+        } catch (IOException e) { // including no response within the timeout
+            return -1; // counted as a failed request
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } finally {
+            streams[client].release();
+        }
+    }
+
+    @Override
+    public String getName() {
+
+        return "http2, " + clients.length + " connection(s) x " + maxStreams + " streams, "
+           + http2Responses.sum() + " responses over HTTP/2 and " + http1Responses.sum() + " over HTTP/1.1";
+    }
+
+    @Override
+    public void close() {
+
+        for (HttpClient client : clients) {
+            client.close(); // waits for the streams still in flight, then closes the connections
+        }
+    }
+}
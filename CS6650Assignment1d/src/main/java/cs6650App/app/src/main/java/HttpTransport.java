@@ -0,0 +1,37 @@
+package cs6650App.app.src.main.java;
+
+/** The way GetPostThread sends its requests. Implementations must be safe
+ * to share between all the threads of a run, and report a request that fails
+ * without a response as -1 rather than throw, so the simulated user carries on.
+ */
+interface HttpTransport {
+
+    /** Sends a GET request and reads the whole response
+     * @param uri the URI to send the request to
+     * @return the HTTP status of the response, -1 if the request couldn't be sent or answered
+     */
+    int get(String uri);
+
+    /** Sends a GET request that only asks for the body if the client's copy is out of date
+     * (If-None-Match), and reads the whole response
+     * @param uri the URI to send the request to
+     * @param ifNoneMatch ETag of the client's copy, null to send a plain GET
+     * @param validators where the response's ETag and Cache-Control max-age are put
+     * @return the HTTP status of the response, 304 if the copy is still current,
+     *         -1 if the request couldn't be sent or answered
+     */
+    int getConditional(String uri, String ifNoneMatch, ConditionalGetCache.Validators validators);
+
+    /** Sends a POST request with a JSON body and reads the whole response
+     * @param uri the URI to send the request to
+     * @param body the text to post
+     * @return the HTTP status of the response, -1 if the request couldn't be sent or answered
+     */
+    int post(String uri, String body);
+
+    /** @return short name of the transport, used in the report */
+    String getName();
+
+    /** Releases any connections held by the transport */
+    void close();
+}
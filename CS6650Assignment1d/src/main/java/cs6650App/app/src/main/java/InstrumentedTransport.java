@@ -0,0 +1,424 @@
+package cs6650App.app.src.main.java;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/** Sends requests as plain HTTP/1.1 over its own sockets, so that every stage of a request
+ * can be timed on its own (see RequestTimings): the name lookup, TCP connect and TLS
+ * handshake of a new connection, the time to the first byte of the response, and the
+ * time to read the rest of it. The JAX-RS client hides all of that behind one call.
+ *
+ * Connections are kept alive and reused, like the pooled JAX-RS transport: each server
+ * keeps a stack of idle connections, up to the pool size. A kept-alive connection the
+ * server has closed in the meantime is replaced by a new one and the request sent again,
+ * as long as no part of the response had arrived on it. Only what the client needs is
+ * supported: fixed-length, chunked and read-until-close response bodies, no redirects.
+ */
+class InstrumentedTransport implements HttpTransport {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+    private static final int BUFFER_BYTES = 16384;
+
+    /** Where a URI's requests go, and the part of the request that is the same every time */
+    private static class Target {
+
+        final String host;
+        final int port;
+        final boolean secure;
+        final String serverKey; // scheme://host:port, the connections are kept per server
+        final byte[] getRequest;
+        final String conditionalGetRequestHead; // up to the If-None-Match value
+        final String postRequestHead; // up to the Content-Length value
+
+        Target(URI uri) {
+
+            this.host = uri.getHost();
+            this.secure = "https".equalsIgnoreCase(uri.getScheme());
+            this.port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+            this.serverKey = uri.getScheme() + "://" + host + ":" + port;
+
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            if (uri.getRawQuery() != null) {
+                path += "?" + uri.getRawQuery();
+            }
+            String hostHeader = uri.getPort() != -1 ? host + ":" + port : host;
+
+            String getRequestHead = "GET " + path + " HTTP/1.1\r\nHost: " + hostHeader
+               + "\r\nAccept: */*\r\nConnection: keep-alive\r\n";
+            this.getRequest = (getRequestHead + "\r\n").getBytes(StandardCharsets.US_ASCII);
+            this.conditionalGetRequestHead = getRequestHead + "If-None-Match: ";
+            this.postRequestHead = "POST " + path + " HTTP/1.1\r\nHost: " + hostHeader
+               + "\r\nAccept: */*\r\nConnection: keep-alive\r\nContent-Type: application/json\r\nContent-Length: ";
+        }
+    }
+
+    /** One kept-alive connection, used by one request at a time */
+    private static class Connection {
+
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+        final byte[] buffer = new byte[BUFFER_BYTES]; // for discarding response bodies
+        final StringBuilder line = new StringBuilder(); // for reading the status line and headers
+
+        Connection(Socket socket) throws IOException {
+
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), BUFFER_BYTES);
+            this.out = socket.getOutputStream();
+        }
+
+        void close() {
+
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing left to do with it
+            }
+        }
+    }
+
+    /** Thrown when a kept-alive connection turns out to be closed before any of the response arrived */
+    private static class StaleConnectionException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        StaleConnectionException(Throwable cause) {
+
+            super("Kept-alive connection was closed by the server", cause);
+        }
+    }
+
+    private final int poolSize;
+    private final RequestTimings timings;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentLinkedDeque<Connection>> idleConnections = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> idleCounts = new ConcurrentHashMap<>();
+
+    /** @param poolSize max number of idle connections kept alive per server
+     * @param timings where the stages of every request are recorded
+     */
+    InstrumentedTransport(int poolSize, RequestTimings timings) {
+
+        this.poolSize = poolSize;
+        this.timings = timings;
+    }
+
+    @Override
+    public int get(String uri) {
+
+        Target target = targets.computeIfAbsent(uri, key -> new Target(URI.create(key)));
+        return send(target, target.getRequest, null);
+    }
+
+    @Override
+    public int getConditional(String uri, String ifNoneMatch, ConditionalGetCache.Validators validators) {
+
+        Target target = targets.computeIfAbsent(uri, key -> new Target(URI.create(key)));
+
+        byte[] request = ifNoneMatch == null ? target.getRequest
+           : (target.conditionalGetRequestHead + ifNoneMatch + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        return send(target, request, validators);
+    }
+
+    @Override
+    public int post(String uri, String body) {
+
+        Target target = targets.computeIfAbsent(uri, key -> new Target(URI.create(key)));
+
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] head = (target.postRequestHead + bodyBytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        byte[] request = new byte[head.length + bodyBytes.length]; // one write, so the body isn't held back
+        System.arraycopy(head, 0, request, 0, head.length);
+        System.arraycopy(bodyBytes, 0, request, head.length, bodyBytes.length);
+
+        return send(target, request, null);
+    }
+
+    /** Sends a request on a kept-alive connection if there is one, or on a new one
+     * @param validators where the response's caching headers are put, null if they aren't wanted
+     * @return the HTTP status of the response, -1 if there was none
+     */
+    private int send(Target target, byte[] request, ConditionalGetCache.Validators validators) {
+
+        Connection connection = null;
+
+        try {
+            connection = takeIdleConnection(target);
+
+            if (connection != null) {
+                try {
+                    int status = exchange(target, connection, request, validators);
+                    timings.recordReusedConnection();
+                    return status;
+
+                } catch (StaleConnectionException e) { // the server closed it while it was idle: start over
+                    connection.close();
+                    timings.recordStaleConnection();
+                }
+            }
+
+            connection = openConnection(target);
+            return exchange(target, connection, request, validators);
+
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            return -1; // counted as an error, like a request that got no response
+        }
+    }
+
+    /** Writes the request and reads the response, then keeps the connection if the server allows it
+     * @return the HTTP status of the response
+     * @throws StaleConnectionException if the connection was closed before any of the response arrived
+     */
+    private int exchange(Target target, Connection connection, byte[] request,
+         ConditionalGetCache.Validators validators) throws IOException {
+
+        long requestStartTime = System.nanoTime();
+        int firstByte;
+
+        try {
+            connection.out.write(request);
+            connection.out.flush();
+            firstByte = connection.in.read(); // blocks until the server starts answering
+        } catch (SocketTimeoutException e) { // the server is slow, not gone: don't send it again
+            throw e;
+        } catch (IOException e) {
+            throw new StaleConnectionException(e);
+        }
+        if (firstByte < 0) {
+            throw new StaleConnectionException(new EOFException());
+        }
+
+        long firstByteTime = System.nanoTime();
+
+        connection.line.setLength(0);
+        connection.line.append((char) firstByte);
+        String statusLine = readLine(connection, true);
+        int status = parseStatus(statusLine);
+
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean keepAlive = !statusLine.startsWith("HTTP/1.0");
+        String etag = null;
+        String cacheControl = null;
+
+        String header;
+        while (!(header = readLine(connection, false)).isEmpty()) {
+
+            int colon = header.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+
+            if (name.equalsIgnoreCase("Content-Length")) {
+                contentLength = parseNumber(value, 10, "Content-Length");
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                chunked = value.toLowerCase().contains("chunked");
+            } else if (name.equalsIgnoreCase("Connection")) {
+                keepAlive = value.equalsIgnoreCase("keep-alive") || (keepAlive && !value.equalsIgnoreCase("close"));
+            } else if (name.equalsIgnoreCase("ETag")) {
+                etag = value;
+            } else if (name.equalsIgnoreCase("Cache-Control")) {
+                cacheControl = value;
+            }
+        }
+        if (validators != null) {
+            validators.update(etag, cacheControl);
+        }
+
+        boolean hasBody = status >= 200 && status != 204 && status != 304;
+
+        if (hasBody && chunked) {
+            discardChunkedBody(connection);
+        } else if (hasBody && contentLength >= 0) {
+            discard(connection, contentLength);
+        } else if (hasBody) { // the body runs until the server closes the connection
+            while (connection.in.read(connection.buffer) >= 0) {
+                // discard
+            }
+            keepAlive = false;
+        }
+
+        timings.recordExchange(firstByteTime - requestStartTime, System.nanoTime() - firstByteTime);
+
+        if (keepAlive) {
+            releaseConnection(target, connection);
+        } else {
+            connection.close();
+        }
+        return status;
+    }
+
+    private Connection openConnection(Target target) throws IOException {
+
+        long dnsStartTime = System.nanoTime();
+        InetAddress address = InetAddress.getByName(target.host); // the JVM caches lookups for a while
+        long connectStartTime = System.nanoTime();
+
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(address, target.port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            long connectFinishTime = System.nanoTime();
+
+            long tlsNanos = -1;
+            if (target.secure) {
+                SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                   .createSocket(socket, target.host, target.port, true);
+                SSLParameters sslParameters = sslSocket.getSSLParameters();
+                sslParameters.setEndpointIdentificationAlgorithm("HTTPS"); // check the certificate is the host's
+                sslSocket.setSSLParameters(sslParameters);
+                sslSocket.startHandshake();
+                tlsNanos = System.nanoTime() - connectFinishTime;
+                socket = sslSocket;
+            }
+
+            timings.recordNewConnection(connectStartTime - dnsStartTime, connectFinishTime - connectStartTime,
+               tlsNanos);
+            return new Connection(socket);
+
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private Connection takeIdleConnection(Target target) {
+
+        ConcurrentLinkedDeque<Connection> idle = idleConnections.get(target.serverKey);
+        Connection connection = idle == null ? null : idle.pollFirst(); // most recently used first
+        if (connection != null) {
+            idleCounts.get(target.serverKey).getAndDecrement();
+        }
+        return connection;
+    }
+
+    private void releaseConnection(Target target, Connection connection) {
+
+        AtomicInteger idleCount = idleCounts.computeIfAbsent(target.serverKey, key -> new AtomicInteger());
+
+        if (idleCount.incrementAndGet() > poolSize) { // enough idle connections kept already
+            idleCount.getAndDecrement();
+            connection.close();
+            return;
+        }
+        idleConnections.computeIfAbsent(target.serverKey, key -> new ConcurrentLinkedDeque<>()).offerFirst(connection);
+    }
+
+    /** Reads one CRLF-terminated line of the status line or headers, as ASCII
+     * @param keep true to append to what is already in the connection's line buffer
+     */
+    private static String readLine(Connection connection, boolean keep) throws IOException {
+
+        StringBuilder line = connection.line;
+        if (!keep) {
+            line.setLength(0);
+        }
+
+        int b;
+        while ((b = connection.in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Connection closed in the middle of the response headers");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static int parseStatus(String statusLine) throws IOException {
+
+        int space = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || space < 0 || statusLine.length() < space + 4) {
+            throw new IOException("Not an HTTP response: " + statusLine);
+        }
+        return (int) parseNumber(statusLine.substring(space + 1, space + 4), 10, "status");
+    }
+
+    /** Parses a number the server sent, as an IOException if it isn't one, so the connection is
+     * dropped and the request counted as failed like any other broken response
+     * @param what which part of the response it is, for the message
+     */
+    private static long parseNumber(String text, int radix, String what) throws IOException {
+
+        try {
+            return Long.parseLong(text, radix);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed " + what + " in the response: " + text, e);
+        }
+    }
+
+    private static void discard(Connection connection, long bytes) throws IOException {
+
+        long remaining = bytes;
+        while (remaining > 0) {
+            int read = connection.in.read(connection.buffer, 0, (int) Math.min(remaining, connection.buffer.length));
+            if (read < 0) {
+                throw new EOFException("Connection closed in the middle of the response body");
+            }
+            remaining -= read;
+        }
+    }
+
+    private static void discardChunkedBody(Connection connection) throws IOException {
+
+        long chunkSize;
+        do {
+            String sizeLine = readLine(connection, false);
+            int extension = sizeLine.indexOf(';');
+            chunkSize = parseNumber((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16,
+               "chunk size");
+
+            discard(connection, chunkSize);
+            if (chunkSize > 0) {
+                readLine(connection, false); // the CRLF after the chunk
+            }
+        } while (chunkSize > 0);
+
+        while (!readLine(connection, false).isEmpty()) {
+            // trailers, up to the empty line that ends the body
+        }
+    }
+
+    @Override
+    public String getName() {
+
+        return "instrumented-socket";
+    }
+
+    @Override
+    public void close() {
+
+        for (ConcurrentLinkedDeque<Connection> idle : idleConnections.values()) {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package cs6650App.app.src.main.java;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/** Sends requests through the JAX-RS client API, either over one shared client
+ * whose connections are kept alive and reused (pooled), or over a new client and
+ * connection for every request (unpooled).
+ *
+ * The default JAX-RS connector sits on top of HttpURLConnection, which keeps idle
+ * connections in a JVM-wide keep-alive cache. That cache is only used when the
+ * response body is read to the end and closed, so every response is drained.
+ * A request that can't be sent or answered fails with -1, like on the other transports.
+ *
+ * The cache reads its settings (http.keepAlive, http.maxConnections) once per JVM, so
+ * every JaxRsTransport of a JVM must be pooled the same way; a different one is
+ * rejected rather than silently running with the first one's settings. The pool size
+ * only caps the idle connections kept per server: busy connections aren't limited,
+ * so under load there can be one connection per thread in flight.
+ */
+class JaxRsTransport implements HttpTransport {
+
+    static final int DEFAULT_POOL_SIZE = 100;
+
+    private static String jvmPooling; // pooling the JVM's keep-alive cache was set up for, guarded by the class
+
+    private final boolean pooled;
+    private final Client sharedClient; // thread safe, used by every thread when pooled
+
+    /** @param pooled true to reuse kept-alive connections, false for a new connection per request
+     * @param poolSize max number of idle connections kept alive per server (ignored when unpooled)
+     * @throws IllegalStateException if an earlier transport of this JVM was pooled differently
+     */
+    JaxRsTransport(boolean pooled, int poolSize) {
+
+        this.pooled = pooled;
+        String pooling = pooled ? "pooled, " + poolSize + " idle connections per server" : "unpooled";
+
+        synchronized (JaxRsTransport.class) {
+            if (jvmPooling != null && !jvmPooling.equals(pooling)) {
+                throw new IllegalStateException("The JVM's HttpURLConnection keep-alive cache is already set up as "
+                   + jvmPooling + ", it can't be changed to " + pooling + " in the same JVM");
+            }
+            if (jvmPooling == null) { // the keep-alive cache is read once per JVM, before the first connection
+                System.setProperty("http.keepAlive", String.valueOf(pooled));
+                System.setProperty("http.maxConnections", String.valueOf(poolSize));
+                jvmPooling = pooling;
+            }
+        }
+
+        this.sharedClient = pooled ? ClientBuilder.newClient() : null;
+    }
+
+    @Override
+    public int get(String uri) {
+
+        return getConditional(uri, null, null);
+    }
+
+    @Override
+    public int getConditional(String uri, String ifNoneMatch, ConditionalGetCache.Validators validators) {
+
+        Client client = pooled ? sharedClient : ClientBuilder.newClient();
+
+        try {
+            Response response = client.target(uri).request().header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch).get();
+
+            if (validators != null) {
+                validators.update(response.getHeaderString(HttpHeaders.ETAG),
+                   response.getHeaderString(HttpHeaders.CACHE_CONTROL));
+            }
+            return drainAndClose(response);
+
+        } catch (ProcessingException e) { // no connection, or it broke before the response was read
+            return -1; // counted as a failed request
+        } finally {
+            if (!pooled) {
+                client.close(); // unpooled clients are only used once
+            }
+        }
+    }
+
+    @Override
+    public int post(String uri, String body) {
+
+        Client client = pooled ? sharedClient : ClientBuilder.newClient();
+
+        try {
+            Response response = client.target(uri).request().post(Entity.json(body));
+
+            return drainAndClose(response);
+
+        } catch (ProcessingException e) {
+            return -1;
+        } finally {
+            if (!pooled) {
+                client.close();
+            }
+        }
+    }
+
+    /** Reads the rest of the response body so the connection can be reused, then closes it
+     * @param response the response to release
+     * @return the HTTP status of the response
+     */
+    private static int drainAndClose(Response response) {
+
+        try {
+            if (response.hasEntity()) {
+                response.readEntity(String.class);
+            }
+            return response.getStatus();
+
+        } finally {
+            response.close();
+        }
+    }
+
+    @Override
+    public String getName() {
+
+        return pooled ? "jaxrs-pooled" : "jaxrs-unpooled";
+    }
+
+    @Override
+    public void close() {
+
+        if (sharedClient != null) {
+            sharedClient.close();
+        }
+    }
+}
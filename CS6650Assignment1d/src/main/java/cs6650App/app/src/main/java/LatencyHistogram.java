@@ -0,0 +1,365 @@
+package cs6650App.app.src.main.java;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Fixed-memory, log-bucketed latency histogram (same layout as an HDR histogram).
+ *
+ * Values are recorded in nanoseconds. The range is split into power-of-two buckets,
+ * and every bucket is split into enough linear sub-buckets that any recorded value
+ * can be reported back to the requested number of significant decimal digits.
+ *
+ * All of the memory is allocated up front, so recording a value never allocates.
+ * The counts are atomic, so any number of threads can record into the same
+ * histogram and another thread can read it at the same time without locking.
+ */
+class LatencyHistogram {
+
+    static final long DEFAULT_LOWEST_DISCERNIBLE_VALUE = 1000L; // 1 microsecond, in nanos
+    static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 3600L * 1000000000L; // 1 hour, in nanos
+    static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private final long lowestDiscernibleValue;
+    private final long highestTrackableValue;
+    private final int significantDigits;
+
+    private final int unitMagnitude; // log2 of the smallest unit we can tell apart
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong(); // sum of recorded values, for the mean
+    private final AtomicLong maxValue = new AtomicLong();
+
+    LatencyHistogram(int significantDigits) {
+
+        this(DEFAULT_LOWEST_DISCERNIBLE_VALUE, DEFAULT_HIGHEST_TRACKABLE_VALUE, significantDigits);
+    }
+
+    /** Creates a histogram that covers [lowestDiscernibleValue, highestTrackableValue]
+     * @param lowestDiscernibleValue smallest value (in nanos) that is told apart from 0, at least 1
+     * @param highestTrackableValue largest value (in nanos) that can be recorded; larger values are clamped
+     * @param significantDigits number of significant decimal digits kept for every value, 1 to 5
+     */
+    LatencyHistogram(long lowestDiscernibleValue, long highestTrackableValue, int significantDigits) {
+
+        if (lowestDiscernibleValue < 1) {
+            throw new IllegalArgumentException("lowestDiscernibleValue must be >= 1");
+        }
+        if (highestTrackableValue < 2 * lowestDiscernibleValue) {
+            throw new IllegalArgumentException("highestTrackableValue must be >= 2 * lowestDiscernibleValue");
+        }
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be between 1 and 5");
+        }
+
+        this.lowestDiscernibleValue = lowestDiscernibleValue;
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+
+        // smallest number of linear sub-buckets that keeps the requested decimal precision
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+
+        this.unitMagnitude = 63 - Long.numberOfLeadingZeros(lowestDiscernibleValue);
+        this.subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+        int subBucketCount = 1 << (subBucketHalfCountMagnitude + 1);
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.subBucketMask = ((long) subBucketCount - 1) << unitMagnitude;
+        this.leadingZeroCountBase = 64 - unitMagnitude - subBucketHalfCountMagnitude - 1;
+
+        // number of power-of-two buckets needed to reach the highest trackable value
+        long smallestUntrackableValue = ((long) subBucketCount) << unitMagnitude;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > (Long.MAX_VALUE / 2)) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+
+        this.counts = new AtomicLongArray((bucketCount + 1) * subBucketHalfCount);
+    }
+
+    /*=================================== RECORDING ===================================*/
+
+    /** Records one value. Safe to call from any number of threads, never allocates.
+     * @param value the value in nanoseconds; negative values count as 0, values over the
+     *              highest trackable value are clamped to it
+     */
+    void recordValue(long value) {
+
+        recordValues(value, 1);
+    }
+
+    /** Records one value and corrects it for coordinated omission: a closed-loop sender
+     * that waited `value` for a response would otherwise have sent a request every
+     * expectedInterval, so the requests it never sent while it waited are recorded too,
+     * with the latencies they would have seen (value - interval, value - 2 * interval, ...
+     * down to the interval). Safe to call from any number of threads, never allocates.
+     * @param value the value in nanoseconds
+     * @param expectedInterval nanos expected between requests of one sender, 0 or less to
+     *                         record the value alone
+     */
+    void recordValueWithExpectedInterval(long value, long expectedInterval) {
+
+        recordValues(value, 1);
+
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missedValue = value - expectedInterval; missedValue >= expectedInterval;
+             missedValue -= expectedInterval) {
+            recordValues(missedValue, 1);
+        }
+    }
+
+    private void recordValues(long value, long count) {
+
+        long clamped = Math.min(Math.max(value, 0L), highestTrackableValue);
+
+        counts.getAndAdd(countsIndexFor(clamped), count);
+        totalCount.getAndAdd(count);
+        totalSum.getAndAdd(clamped * count);
+
+        long currentMax = maxValue.get();
+        while (clamped > currentMax && !maxValue.compareAndSet(currentMax, clamped)) { // lock-free max update
+            currentMax = maxValue.get();
+        }
+    }
+
+    /** Adds all the counts of another histogram with the same layout into this one
+     * @param other histogram to merge in, must have been created with the same parameters
+     */
+    void add(LatencyHistogram other) {
+
+        if (other.counts.length() != counts.length() || other.unitMagnitude != unitMagnitude
+                || other.subBucketHalfCount != subBucketHalfCount) {
+            throw new IllegalArgumentException("Cannot merge histograms with different layouts");
+        }
+
+        for (int i = 0; i < counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.getAndAdd(i, count);
+            }
+        }
+        totalCount.getAndAdd(other.totalCount.get());
+        totalSum.getAndAdd(other.totalSum.get());
+
+        long otherMax = other.maxValue.get();
+        long currentMax = maxValue.get();
+        while (otherMax > currentMax && !maxValue.compareAndSet(currentMax, otherMax)) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    /** Works out what was recorded between an earlier snapshot of a histogram and this
+     * later one. Both must be snapshots of the same, only ever growing, histogram.
+     * @param earlier the earlier snapshot
+     * @return a new histogram holding only the values recorded after the earlier snapshot
+     */
+    LatencyHistogram intervalSince(LatencyHistogram earlier) {
+
+        if (earlier.counts.length() != counts.length() || earlier.unitMagnitude != unitMagnitude
+                || earlier.subBucketHalfCount != subBucketHalfCount) {
+            throw new IllegalArgumentException("Cannot subtract histograms with different layouts");
+        }
+
+        LatencyHistogram interval = copyLayout();
+        int highestIndex = -1;
+
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i) - earlier.counts.get(i);
+            if (count > 0) {
+                interval.counts.set(i, count);
+                highestIndex = i;
+            }
+        }
+        interval.totalCount.set(totalCount.get() - earlier.totalCount.get());
+        interval.totalSum.set(totalSum.get() - earlier.totalSum.get());
+
+        if (highestIndex >= 0) { // the exact max of the interval is gone, so use its highest bucket
+            interval.maxValue.set(Math.min(highestEquivalentValue(valueFromIndex(highestIndex)), getMaxValue()));
+        }
+        return interval;
+    }
+
+    /** @return a new, empty histogram with the same layout as this one */
+    LatencyHistogram copyLayout() {
+
+        return new LatencyHistogram(lowestDiscernibleValue, highestTrackableValue, significantDigits);
+    }
+
+    /*=================================== SERIALIZATION ===============================*/
+
+    /** Writes the histogram's layout and its non-zero counts, so it can be read back
+     * and merged in another JVM (e.g. the results of a distributed run)
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+
+        out.writeLong(lowestDiscernibleValue);
+        out.writeLong(highestTrackableValue);
+        out.writeInt(significantDigits);
+        out.writeLong(totalCount.get());
+        out.writeLong(totalSum.get());
+        out.writeLong(maxValue.get());
+
+        int nonZeroCounts = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) != 0) {
+                nonZeroCounts++;
+            }
+        }
+
+        out.writeInt(nonZeroCounts);
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                out.writeInt(i);
+                out.writeLong(count);
+            }
+        }
+    }
+
+    /** Reads back a histogram written by writeTo
+     * @param in stream to read from
+     * @return the histogram
+     * @throws IOException if reading fails
+     */
+    static LatencyHistogram readFrom(DataInputStream in) throws IOException {
+
+        LatencyHistogram histogram = new LatencyHistogram(in.readLong(), in.readLong(), in.readInt());
+
+        histogram.totalCount.set(in.readLong());
+        histogram.totalSum.set(in.readLong());
+        histogram.maxValue.set(in.readLong());
+
+        int nonZeroCounts = in.readInt();
+        for (int i = 0; i < nonZeroCounts; i++) {
+            int index = in.readInt();
+            histogram.counts.set(index, in.readLong());
+        }
+        return histogram;
+    }
+
+    /*=================================== QUERIES =====================================*/
+
+    long getTotalCount() {
+
+        return totalCount.get();
+    }
+
+    long getMaxValue() {
+
+        return maxValue.get();
+    }
+
+    int getSignificantDigits() {
+
+        return significantDigits;
+    }
+
+    /** @return mean of the recorded values in nanoseconds, or 0 if nothing was recorded */
+    double getMean() {
+
+        long count = getTotalCount();
+        return count == 0 ? 0.0 : totalSum.get() / (double) count;
+    }
+
+    /** Finds the value that the given fraction of recorded values are less than or equal to
+     * @param percentile what percentile to calculate (e.g., .99 for 99th percentile), 0 to 1
+     * @return the value at that percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    long getValueAtPercentile(double percentile) {
+
+        long count = getTotalCount();
+        if (count == 0) {
+            return 0L;
+        }
+
+        double boundedPercentile = Math.min(Math.max(percentile, 0.0), 1.0);
+        long countAtPercentile = Math.max(1L, (long) Math.ceil(boundedPercentile * count)); // rank of the value
+
+        long runningCount = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            runningCount += counts.get(i);
+            if (runningCount >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(valueFromIndex(i)), getMaxValue());
+            }
+        }
+        return getMaxValue(); // only reached if a recorder raced us; the max is the best answer
+    }
+
+    /** Counts the values at or below each of the given bounds, in one pass over the counts.
+     * Values are only known to the histogram's precision, so a value within that precision
+     * of a bound may be counted on either side of it.
+     * @param upperBounds bounds in nanoseconds, in ascending order
+     * @return for each bound, how many recorded values are at or below it
+     */
+    long[] getCumulativeCounts(long[] upperBounds) {
+
+        long[] cumulativeCounts = new long[upperBounds.length];
+        long runningCount = 0;
+        int bound = 0;
+
+        for (int i = 0; i < counts.length() && bound < upperBounds.length; i++) {
+            long bucketValue = valueFromIndex(i); // lowest value that lands in this slot
+            while (bound < upperBounds.length && bucketValue > upperBounds[bound]) {
+                cumulativeCounts[bound++] = runningCount;
+            }
+            runningCount += counts.get(i);
+        }
+        while (bound < upperBounds.length) {
+            cumulativeCounts[bound++] = runningCount;
+        }
+        return cumulativeCounts;
+    }
+
+    /*=================================== BUCKET MATH =================================*/
+
+    private int countsIndexFor(long value) {
+
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> (bucketIndex + unitMagnitude));
+
+        int bucketBaseIndex = (bucketIndex + 1) << subBucketHalfCountMagnitude;
+        int offsetInBucket = subBucketIndex - subBucketHalfCount;
+
+        return bucketBaseIndex + offsetInBucket;
+    }
+
+    private long valueFromIndex(int index) {
+
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+
+        if (bucketIndex < 0) { // the first bucket also holds the lower half of its sub-buckets
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((long) subBucketIndex) << (bucketIndex + unitMagnitude);
+    }
+
+    private long highestEquivalentValue(long value) {
+
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> (bucketIndex + unitMagnitude));
+
+        int adjustedBucket = (subBucketIndex >= 2 * subBucketHalfCount) ? bucketIndex + 1 : bucketIndex;
+        long sizeOfEquivalentRange = 1L << (unitMagnitude + adjustedBucket);
+        long lowestEquivalentValue = ((long) subBucketIndex) << (bucketIndex + unitMagnitude);
+
+        return lowestEquivalentValue + sizeOfEquivalentRange - 1;
+    }
+}
@@ -0,0 +1,81 @@
+package cs6650App.app.src.main.java;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Records latencies from many threads into a set of per-thread histograms,
+ * and merges them into one histogram when the statistics are needed.
+ *
+ * Each recording thread is handed one of the histograms the first time it records,
+ * so threads mostly write to their own histogram instead of fighting over the same
+ * counters. The number of histograms is fixed (a power of two, by default about two
+ * per CPU), so memory stays the same no matter how many threads record.
+ */
+class LatencyRecorder {
+
+    private final LatencyHistogram[] threadHistograms;
+    private final AtomicInteger nextHistogram = new AtomicInteger();
+    private final ThreadLocal<LatencyHistogram> currentThreadHistogram;
+
+    LatencyRecorder(int significantDigits) {
+
+        this(significantDigits, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @param significantDigits decimal precision of the recorded values
+     * @param recorders how many per-thread histograms to keep, rounded up to a power of two
+     */
+    LatencyRecorder(int significantDigits, int recorders) {
+
+        int size = Integer.highestOneBit(Math.max(recorders, 1) - 1) << 1; // next power of two
+        size = Math.max(size, 1);
+
+        threadHistograms = new LatencyHistogram[size];
+        for (int i = 0; i < size; i++) {
+            threadHistograms[i] = new LatencyHistogram(significantDigits);
+        }
+
+        int mask = size - 1;
+        currentThreadHistogram = ThreadLocal.withInitial( // assign histograms round robin
+                () -> threadHistograms[nextHistogram.getAndIncrement() & mask]);
+    }
+
+    /** Records a latency for the calling thread
+     * @param nanos latency in nanoseconds
+     */
+    void record(long nanos) {
+
+        currentThreadHistogram.get().recordValue(nanos);
+    }
+
+    /** Records a latency for the calling thread, corrected for coordinated omission
+     * (see LatencyHistogram.recordValueWithExpectedInterval)
+     * @param nanos latency in nanoseconds
+     * @param expectedIntervalNanos nanos expected between requests of one sender, 0 for no correction
+     */
+    void recordWithExpectedInterval(long nanos, long expectedIntervalNanos) {
+
+        currentThreadHistogram.get().recordValueWithExpectedInterval(nanos, expectedIntervalNanos);
+    }
+
+    /** Adds an already recorded histogram, e.g. one read from another JVM's results
+     * @param histogram histogram with the same layout as this recorder's
+     */
+    void add(LatencyHistogram histogram) {
+
+        threadHistograms[0].add(histogram);
+    }
+
+    /** Merges all the per-thread histograms into a new histogram. Recording threads
+     * are not blocked while this runs.
+     * @return a histogram holding everything recorded so far
+     */
+    LatencyHistogram snapshot() {
+
+        LatencyHistogram merged = threadHistograms[0].copyLayout();
+
+        for (LatencyHistogram histogram : threadHistograms) {
+            merged.add(histogram);
+        }
+        return merged;
+    }
+}
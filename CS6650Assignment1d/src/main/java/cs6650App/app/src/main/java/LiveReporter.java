@@ -0,0 +1,138 @@
+package cs6650App.app.src.main.java;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Reports throughput, errors and latency percentiles for each time window of
+ * a run while it is still going, instead of only at the end.
+ *
+ * Every interval it takes a snapshot of the cumulative statistics and subtracts
+ * the previous snapshot, which gives the window's own interval histogram. Taking
+ * a snapshot only reads the recorders, so recording threads never wait on it.
+ *
+ * Windows are printed to the console, or appended to a file as CSV or, if the
+ * file name ends in .jsonl, one JSON object per line.
+ */
+class LiveReporter {
+
+    private final long intervalNanos;
+    private final String outputFile; // null to print to the console
+    private final ScheduledExecutorService scheduler;
+
+    private LatencyHistogram previousHistogram;
+    private RequestCounters.Snapshot previousCounters;
+    private int previousRun; // StatisticsGatherer's run number, changes when it is reset
+    private long previousTime;
+    private long reporterStartTime;
+
+    /** @param intervalSeconds length of a reporting window
+     * @param outputFile file to append windows to, or null for the console
+     */
+    LiveReporter(int intervalSeconds, String outputFile) {
+
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.outputFile = outputFile;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-reporter");
+            thread.setDaemon(true); // never keeps the client alive
+            return thread;
+        });
+    }
+
+    /** Takes the first snapshot and starts reporting every interval */
+    void start() {
+
+        previousHistogram = StatisticsGatherer.snapshotLatencyHistogram();
+        previousCounters = StatisticsGatherer.snapshotCounters();
+        previousRun = StatisticsGatherer.getRunNumber();
+        previousTime = System.nanoTime();
+        reporterStartTime = previousTime;
+
+        if (outputFile != null && !outputFile.endsWith(".jsonl")) {
+            appendLine("time,elapsed_s,phase,requests,throughput,errors,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+        }
+
+        scheduler.scheduleAtFixedRate(this::reportWindow, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Stops reporting, after reporting the last partial window */
+    void stop() {
+
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(intervalNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        reportWindow();
+    }
+
+    /** Reports everything recorded since the previous window */
+    private synchronized void reportWindow() {
+
+        long now = System.nanoTime();
+        LatencyHistogram currentHistogram = StatisticsGatherer.snapshotLatencyHistogram();
+        RequestCounters.Snapshot currentCounters = StatisticsGatherer.snapshotCounters();
+        int currentRun = StatisticsGatherer.getRunNumber();
+
+        boolean reset = currentRun != previousRun; // the window started in a run whose statistics are gone
+        LatencyHistogram window = reset ? currentHistogram : currentHistogram.intervalSince(previousHistogram);
+        RequestCounters.Snapshot windowCounters = reset ? currentCounters : currentCounters.since(previousCounters);
+        long requests = windowCounters.getRequests();
+        long errors = windowCounters.getFailures();
+        double windowSeconds = (now - previousTime) / 1e9;
+        double elapsedSeconds = (now - reporterStartTime) / 1e9;
+
+        previousHistogram = currentHistogram;
+        previousCounters = currentCounters;
+        previousRun = currentRun;
+        previousTime = now;
+
+        String phase = StatisticsGatherer.getCurrentPhaseName();
+        double throughput = windowSeconds > 0 ? requests / windowSeconds : 0;
+
+        if (outputFile == null) {
+            System.out.println(String.format("[live %7.1fs] %-15s %8d req %9.1f req/s %6d errors"
+                  + " | mean %8.3f p50 %8.3f p90 %8.3f p99 %8.3f p99.9 %8.3f max %8.3f ms",
+               elapsedSeconds, phase, requests, throughput, errors, millis(window.getMean()),
+               millis(window.getValueAtPercentile(.5)), millis(window.getValueAtPercentile(.9)),
+               millis(window.getValueAtPercentile(.99)), millis(window.getValueAtPercentile(.999)),
+               millis(window.getMaxValue())));
+
+        } else if (outputFile.endsWith(".jsonl")) {
+            appendLine(String.format("{\"time\":\"%s\",\"elapsed_s\":%.3f,\"phase\":\"%s\",\"requests\":%d,"
+                  + "\"throughput\":%.3f,\"errors\":%d,\"mean_ms\":%.3f,\"p50_ms\":%.3f,\"p90_ms\":%.3f,"
+                  + "\"p99_ms\":%.3f,\"p999_ms\":%.3f,\"max_ms\":%.3f}",
+               LocalDateTime.now(), elapsedSeconds, phase, requests, throughput, errors,
+               millis(window.getMean()), millis(window.getValueAtPercentile(.5)),
+               millis(window.getValueAtPercentile(.9)), millis(window.getValueAtPercentile(.99)),
+               millis(window.getValueAtPercentile(.999)), millis(window.getMaxValue())));
+
+        } else {
+            appendLine(String.format("%s,%.3f,%s,%d,%.3f,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+               LocalDateTime.now(), elapsedSeconds, phase, requests, throughput, errors,
+               millis(window.getMean()), millis(window.getValueAtPercentile(.5)),
+               millis(window.getValueAtPercentile(.9)), millis(window.getValueAtPercentile(.99)),
+               millis(window.getValueAtPercentile(.999)), millis(window.getMaxValue())));
+        }
+    }
+
+    private void appendLine(String line) {
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outputFile, true))) {
+            writer.println(line);
+        } catch (IOException e) {
+            System.out.println("Live report could not be written to " + outputFile + ": " + e.getMessage());
+        }
+    }
+
+    private static double millis(double nanos) {
+
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,172 @@
+package cs6650App.app.src.main.java;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Exports the client's statistics in the OpenMetrics text format, so dashboards can chart
+ * the load the client is generating next to the server's own metrics.
+ *
+ * The metrics are served at http://localhost:<port>/metrics for a Prometheus scrape,
+ * and/or written to a file every interval (replaced in one move, so a reader never sees
+ * half a file). Building them only sums the striped counters and snapshots the latency
+ * recorders, so a scrape never makes a recording thread wait.
+ *
+ * Exported: request and response counters, missed schedules, active users, live JVM
+ * threads, the current phase, and a latency histogram per (phase, operation, status).
+ */
+class MetricsExporter {
+
+    static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    // histogram bucket bounds, in seconds and in nanos
+    private static final String[] BUCKET_LABELS = {"0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1",
+       "0.25", "0.5", "1.0", "2.5", "5.0", "10.0", "30.0"};
+    private static final long[] BUCKET_BOUNDS = {1000000L, 2500000L, 5000000L, 10000000L, 25000000L,
+       50000000L, 100000000L, 250000000L, 500000000L, 1000000000L, 2500000000L, 5000000000L,
+       10000000000L, 30000000000L};
+
+    private HttpServer server;
+    private ScheduledExecutorService fileWriter;
+
+    /** Serves the metrics at /metrics on a local port
+     * @param port port to listen on
+     * @throws IOException if the port can't be opened
+     */
+    void serve(int port) throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(null); // scrapes are handled one at a time on the server's own thread
+        server.start();
+
+        System.out.println("Metrics served at http://localhost:" + port + "/metrics");
+    }
+
+    /** Writes the metrics to a file every interval, and once more on stop
+     * @param file file to write
+     * @param intervalSeconds seconds between writes
+     */
+    void writeEvery(Path file, int intervalSeconds) {
+
+        fileWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-writer");
+            thread.setDaemon(true); // never keeps the client alive
+            return thread;
+        });
+        fileWriter.scheduleAtFixedRate(() -> write(file), 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Stops serving and writing, after writing the file a last time with the final numbers
+     * @param file the file being written, or null
+     */
+    void stop(Path file) {
+
+        if (fileWriter != null) {
+            fileWriter.shutdown();
+            try {
+                fileWriter.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            write(file);
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static void write(Path file) {
+
+        try {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, render().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Metrics could not be written to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /** @return every metric, in the OpenMetrics text format */
+    static String render() {
+
+        StringBuilder out = new StringBuilder(4096);
+        RequestCounters.Snapshot counters = StatisticsGatherer.snapshotCounters(); // one snapshot, consistent counts
+
+        out.append("# TYPE cs6650_client_requests counter\n")
+           .append("# HELP cs6650_client_requests Requests sent.\n")
+           .append("cs6650_client_requests_total ").append(counters.getRequests()).append('\n');
+
+        out.append("# TYPE cs6650_client_responses counter\n")
+           .append("# HELP cs6650_client_responses Requests answered with a 200 (or a 304 to a conditional GET),"
+              + " and the rest.\n")
+           .append("cs6650_client_responses_total{outcome=\"success\"} ")
+           .append(counters.getSuccesses()).append('\n')
+           .append("cs6650_client_responses_total{outcome=\"failure\"} ")
+           .append(counters.getFailures()).append('\n');
+
+        out.append("# TYPE cs6650_client_missed_schedules counter\n")
+           .append("# HELP cs6650_client_missed_schedules Open-loop requests sent later than scheduled.\n")
+           .append("cs6650_client_missed_schedules_total ").append(counters.getMissedSchedules())
+           .append('\n');
+
+        out.append("# TYPE cs6650_client_active_users gauge\n")
+           .append("# HELP cs6650_client_active_users Simulated users (or async tasks) running now.\n")
+           .append("cs6650_client_active_users ").append(StatisticsGatherer.getActiveUsers()).append('\n');
+
+        out.append("# TYPE cs6650_client_jvm_threads gauge\n")
+           .append("# HELP cs6650_client_jvm_threads Live platform threads of the client JVM.\n")
+           .append("cs6650_client_jvm_threads ").append(ExecutionEngine.livePlatformThreads()).append('\n');
+
+        out.append("# TYPE cs6650_client_phase info\n")
+           .append("# HELP cs6650_client_phase The phase requests are counted towards now.\n")
+           .append("cs6650_client_phase_info{phase=\"").append(escape(StatisticsGatherer.getCurrentPhaseName()))
+           .append("\"} 1\n");
+
+        out.append("# TYPE cs6650_client_request_latency_seconds histogram\n")
+           .append("# HELP cs6650_client_request_latency_seconds Request latency by phase, operation and status.\n")
+           .append("# UNIT cs6650_client_request_latency_seconds seconds\n");
+
+        StatisticsGatherer.visitRequestBreakdown((phase, operation, statusClass, histogram) -> {
+
+            String labels = "phase=\"" + escape(phase) + "\",operation=\"" + operation
+               + "\",status=\"" + statusClass + "\"";
+            long[] cumulativeCounts = histogram.getCumulativeCounts(BUCKET_BOUNDS);
+            long count = histogram.getTotalCount();
+
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                out.append("cs6650_client_request_latency_seconds_bucket{").append(labels)
+                   .append(",le=\"").append(BUCKET_LABELS[i]).append("\"} ").append(cumulativeCounts[i]).append('\n');
+            }
+            out.append("cs6650_client_request_latency_seconds_bucket{").append(labels)
+               .append(",le=\"+Inf\"} ").append(count).append('\n');
+            out.append("cs6650_client_request_latency_seconds_count{").append(labels).append("} ")
+               .append(count).append('\n');
+            out.append("cs6650_client_request_latency_seconds_sum{").append(labels).append("} ")
+               .append(histogram.getMean() * count / 1e9).append('\n');
+        });
+
+        return out.append("# EOF\n").toString();
+    }
+
+    /** Escapes a label value: backslash, double quote and line feed */
+    private static String escape(String value) {
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
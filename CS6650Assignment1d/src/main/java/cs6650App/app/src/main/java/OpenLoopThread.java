@@ -0,0 +1,57 @@
+package cs6650App.app.src.main.java;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Task used by the open-loop mode, run on a thread of the ExecutionEngine. Instead of sending its next request
+ * when the last one comes back, it claims request slots from the phase's
+ * arrival schedule and sends each one at its intended time, taking the
+ * execution plan's operations in turn. Latency is measured from the intended time, so time spent
+ * waiting behind a slow server is counted rather than hidden.
+ */
+public class OpenLoopThread implements Runnable {
+
+    private ArrivalSchedule arrivalSchedule;
+    private long missedScheduleTolerance; // how late (nanos) a request can be sent before it counts as missed
+    private PlannedOperation[] operationSequence;
+    private CountDownLatch countDownLatchFinish;
+
+    OpenLoopThread(ArrivalSchedule arrivalSchedule, long missedScheduleTolerance,
+                   PlannedOperation[] operationSequence, CountDownLatch countDownLatchFinish) {
+
+        this.arrivalSchedule = arrivalSchedule;
+        this.operationSequence = operationSequence;
+        this.missedScheduleTolerance = missedScheduleTolerance;
+        this.countDownLatchFinish = countDownLatchFinish;
+    }
+
+    @Override
+    public void run() {
+
+        try {
+            long slot;
+
+            while ((slot = arrivalSchedule.claimSlot()) >= 0) { // until every request of the phase is claimed
+
+                long intendedStartTime = arrivalSchedule.intendedStartTime(slot);
+
+                long waitTime;
+                while ((waitTime = intendedStartTime - System.nanoTime()) > 0) { // wait until the request is due
+                    LockSupport.parkNanos(waitTime);
+                }
+
+                if (-waitTime > missedScheduleTolerance) { // sent later than it should have been
+                    StatisticsGatherer.updateMissedScheduleStatistics();
+                }
+
+                // keep the plan's mix; think times don't apply, the schedule decides when requests go
+                GetPostThread.execute(operationSequence[(int) (slot % operationSequence.length)], intendedStartTime);
+            }
+        } finally { // even if a request blew up, so the phase isn't waited on for ever
+            if (countDownLatchFinish != null) {
+                countDownLatchFinish.countDown();
+            }
+        }
+    }
+}
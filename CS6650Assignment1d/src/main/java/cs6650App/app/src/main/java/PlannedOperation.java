@@ -0,0 +1,47 @@
+package cs6650App.app.src.main.java;
+
+/** One kind of request in an execution plan: what to send, where, and how long
+ * the simulated user thinks before its next request
+ */
+class PlannedOperation {
+
+    private final String name;
+    private final int operation; // RequestBreakdown.GET or RequestBreakdown.POST
+    private final String uri;
+    private final String body; // POST body, null for GET
+    private final long thinkTimeNanos;
+
+    PlannedOperation(String name, int operation, String uri, String body, long thinkTimeNanos) {
+
+        this.name = name;
+        this.operation = operation;
+        this.uri = uri;
+        this.body = body;
+        this.thinkTimeNanos = thinkTimeNanos;
+    }
+
+    String getName() {
+
+        return name;
+    }
+
+    int getOperation() {
+
+        return operation;
+    }
+
+    String getUri() {
+
+        return uri;
+    }
+
+    String getBody() {
+
+        return body;
+    }
+
+    long getThinkTimeNanos() {
+
+        return thinkTimeNanos;
+    }
+}
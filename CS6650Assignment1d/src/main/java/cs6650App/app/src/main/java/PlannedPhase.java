@@ -0,0 +1,99 @@
+package cs6650App.app.src.main.java;
+
+/** One phase of an execution plan. A phase runs a number of simulated users
+ * either closed-loop (each user sends its next request when the last one is
+ * back) or open-loop at a target rate, and ends after a number of iterations
+ * per user or after a fixed duration, whichever comes first.
+ *
+ * In continuous mode (see UserPool) phases run for their duration only, and the
+ * number of users moves from the previous phase's to this phase's over the ramp,
+ * either linearly or in equal steps.
+ */
+class PlannedPhase {
+
+    private final String name;
+    private final int threads;
+    private final long iterations; // passes through the operation sequence per user, 0 for no limit
+    private final long durationNanos; // 0 for no time limit
+    private final double rate; // open-loop requests per second, 0 for closed-loop
+    private final long rampNanos; // continuous mode: time to reach this phase's threads, 0 for at once
+    private final int rampSteps; // continuous mode: steps the ramp is made in, 0 for linear
+
+    PlannedPhase(String name, int threads, long iterations, long durationNanos, double rate) {
+
+        this(name, threads, iterations, durationNanos, rate, 0, 0);
+    }
+
+    PlannedPhase(String name, int threads, long iterations, long durationNanos, double rate,
+                 long rampNanos, int rampSteps) {
+
+        if (iterations <= 0 && durationNanos <= 0) {
+            throw new IllegalArgumentException("Phase " + name + " needs iterations or a duration");
+        }
+        this.name = name;
+        this.threads = threads;
+        this.iterations = iterations;
+        this.durationNanos = durationNanos;
+        this.rate = rate;
+        this.rampNanos = Math.min(rampNanos, durationNanos > 0 ? durationNanos : rampNanos);
+        this.rampSteps = rampSteps;
+    }
+
+    String getName() {
+
+        return name;
+    }
+
+    int getThreads() {
+
+        return threads;
+    }
+
+    long getIterations() {
+
+        return iterations;
+    }
+
+    long getDurationNanos() {
+
+        return durationNanos;
+    }
+
+    double getRate() {
+
+        return rate;
+    }
+
+    long getRampNanos() {
+
+        return rampNanos;
+    }
+
+    int getRampSteps() {
+
+        return rampSteps;
+    }
+
+    /** Works out how many users should be running part way through the ramp
+     * @param previousThreads users running when the phase started
+     * @param elapsedNanos time since the phase started
+     * @return users that should be running now
+     */
+    int threadsAt(int previousThreads, long elapsedNanos) {
+
+        if (rampNanos <= 0 || elapsedNanos >= rampNanos) {
+            return threads;
+        }
+
+        double progress = elapsedNanos / (double) rampNanos;
+        if (rampSteps > 0) { // hold each step until the next one is due
+            progress = Math.floor(progress * rampSteps) / rampSteps;
+        }
+        return previousThreads + (int) Math.round((threads - previousThreads) * progress);
+    }
+
+    boolean isOpenLoop() {
+
+        return rate > 0;
+    }
+}
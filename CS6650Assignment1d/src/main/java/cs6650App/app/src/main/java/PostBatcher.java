@@ -0,0 +1,165 @@
+package cs6650App.app.src.main.java;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Coalesces the POSTs of many simulated users into batched requests, to measure how
+ * much batching raises throughput and cuts the number of requests (and so of Lambda
+ * invocations) the server has to handle.
+ *
+ * POSTs to the same URI join the open batch for that URI. The user whose POST opened
+ * the batch leads it: it waits until the batch is full or the linger time is up, then
+ * sends all of its bodies as one JSON array to the batch endpoint (SimpleGetPostResource
+ * /tests/batch, or the PostBatchHandler Lambda) and hands the status to the others. The
+ * other users of the batch just wait for the answer, so every POST's latency still
+ * counts from its own send, linger included, and is recorded per item as usual. The
+ * batches themselves are timed and counted here.
+ */
+class PostBatcher {
+
+    static final int DEFAULT_LINGER_MS = 5;
+
+    private static final int RECORDERS = 4;
+
+    /** POSTs waiting to go out together */
+    private static class Batch {
+
+        final StringBuilder body = new StringBuilder(256).append('[');
+        final CountDownLatch full = new CountDownLatch(1); // released when maxItems have joined
+        final CountDownLatch answered = new CountDownLatch(1); // released once status is set
+        int items;
+        int status = -1; // the batch's status counts for every POST in it
+    }
+
+    private final HttpTransport transport;
+    private final int maxItems;
+    private final long lingerNanos;
+    private final String batchUri; // where all batches go, null for the POST URI + "/batch"
+    private final Map<String, Batch> openBatches = new HashMap<>(); // by POST URI, guarded by itself
+    private final LatencyRecorder batchLatency;
+    private final LongAdder batchesSent = new LongAdder();
+    private final LongAdder fullBatches = new LongAdder();
+    private final LongAdder itemsSent = new LongAdder();
+
+    /** @param transport transport the batches are sent through
+     * @param maxItems most POSTs in one batch, a full batch is sent at once
+     * @param lingerNanos longest a batch waits for more POSTs before it is sent
+     * @param batchUri URI to send every batch to, or null to send them to the POST URI + "/batch"
+     * @param significantDigits decimal precision of the batch latency histogram
+     */
+    PostBatcher(HttpTransport transport, int maxItems, long lingerNanos, String batchUri, int significantDigits) {
+
+        this.transport = transport;
+        this.maxItems = maxItems;
+        this.lingerNanos = lingerNanos;
+        this.batchUri = batchUri;
+        this.batchLatency = new LatencyRecorder(significantDigits, RECORDERS);
+    }
+
+    /** Posts a body as part of a batch, and waits until the batch is answered
+     * @param uri the URI the body would have been posted to on its own
+     * @param body the text to post
+     * @return the HTTP status of the batch, -1 if it couldn't be sent
+     */
+    int post(String uri, String body) {
+
+        Batch batch;
+        boolean leader;
+
+        synchronized (openBatches) {
+
+            batch = openBatches.get(uri);
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch();
+                openBatches.put(uri, batch);
+            } else {
+                batch.body.append(',');
+            }
+            batch.body.append(body);
+
+            if (++batch.items == maxItems) { // no room for more, the leader sends it now
+                openBatches.remove(uri);
+                batch.full.countDown();
+            }
+        }
+
+        if (leader) {
+            sendWhenFullOrLingered(uri, batch);
+        } else {
+            awaitUninterruptibly(batch.answered, Long.MAX_VALUE);
+        }
+        return batch.status;
+    }
+
+    private void sendWhenFullOrLingered(String uri, Batch batch) {
+
+        awaitUninterruptibly(batch.full, lingerNanos);
+        String batchBody;
+        int items;
+
+        synchronized (openBatches) { // close the batch so no more POSTs join it
+            openBatches.remove(uri, batch);
+            batchBody = batch.body.append(']').toString();
+            items = batch.items;
+        }
+
+        long sendTime = System.nanoTime();
+        try {
+            batch.status = transport.post(batchUri != null ? batchUri
+               : uri + (uri.endsWith("/") ? "batch" : "/batch"), batchBody);
+        } finally { // the other POSTs of the batch fail with it rather than wait forever
+            batchLatency.record(System.nanoTime() - sendTime);
+            batchesSent.increment();
+            itemsSent.add(items);
+            if (items == maxItems) {
+                fullBatches.increment();
+            }
+            batch.answered.countDown();
+        }
+    }
+
+    /** Waits until the latch is released or the time runs out, keeping an interrupt for later */
+    private static void awaitUninterruptibly(CountDownLatch latch, long timeoutNanos) {
+
+        boolean interrupted = false;
+        long deadline = System.nanoTime() + timeoutNanos;
+
+        try {
+            while (true) {
+                try {
+                    latch.await(timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE
+                       : deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true; // the batch still has to be answered
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Prints how many batches were sent, how full they were and how long they took */
+    void print() {
+
+        long batches = batchesSent.sum();
+        long items = itemsSent.sum();
+        LatencyHistogram histogram = batchLatency.snapshot();
+
+        System.out.printf("Batched POSTs: %d POSTs in %d batches of up to %d, mean %.1f per batch, %d sent full"
+              + " and the rest after lingering %.1f ms%n", items, batches, maxItems,
+           batches == 0 ? 0.0 : (double) items / batches, fullBatches.sum(), lingerNanos / 1e6);
+        System.out.printf("  %.1f%% fewer POST requests (Lambda invocations) than unbatched%n",
+           items == 0 ? 0.0 : 100.0 * (items - batches) / items);
+        System.out.printf("  Batch latency (ms): mean %.3f, p50 %.3f, p99 %.3f, max %.3f"
+              + " (per-POST latencies, linger included, are in the POST rows)%n",
+           histogram.getMean() / 1e6, histogram.getValueAtPercentile(.5) / 1e6,
+           histogram.getValueAtPercentile(.99) / 1e6, histogram.getMaxValue() / 1e6);
+    }
+}
@@ -0,0 +1,199 @@
+package cs6650App.app.src.main.java;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Optional log of every request as a fixed-width binary record, written to
+ * memory-mapped segments of a file so that multi-hour runs don't have to keep
+ * their samples on the heap. RawSampleLogReader rebuilds the report from it.
+ *
+ * The file starts with a HEADER_BYTES header, followed by segments of records.
+ * Each recording thread is assigned one of a fixed set of segments (like the
+ * latency recorders) and claims space in it with a single atomic add, so the
+ * hot path takes no locks and copies nothing: fields are written straight into
+ * the mapped memory. When a segment fills, the thread that overflowed it maps
+ * the next one. Unused space at the end of a segment stays zero and is skipped
+ * by the reader, since every written record ends with a non-zero marker byte.
+ * If the next segment can't be mapped (e.g. the disk is full) the log stops:
+ * later samples are dropped rather than failing the requests they belong to.
+ *
+ * Record layout (RECORD_BYTES, big-endian):
+ *  0 start time (nanoTime, long)   8 duration nanos (long)   16 thread id (long)
+ *  24 HTTP status, -1 if none (int)   28 phase index (short)   30 operation (byte)
+ *  31 marker, 1 once written (byte)
+ */
+class RawSampleLog {
+
+    static final long MAGIC = 0x4353363635305253L; // "CS6650RS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4096;
+    static final int RECORD_BYTES = 32;
+    static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    private static final int FIXED_HEADER_BYTES = 36; // everything before the phase names
+
+    private final FileChannel channel;
+    private final int segmentBytes;
+    private final AtomicLong nextSegmentOffset = new AtomicLong(HEADER_BYTES);
+    private final AtomicReferenceArray<Segment> segments; // one per stripe of threads
+    private final Queue<Segment> mappedSegments = new ConcurrentLinkedQueue<>(); // to flush on close
+    private final ThreadLocal<Integer> currentThreadStripe;
+    private volatile boolean failed; // a segment couldn't be mapped, samples are dropped from then on
+
+    /** Creates (or overwrites) the log file and writes its header
+     * @param file path of the log file
+     * @param segmentBytes size of each mapped segment, rounded down to whole records
+     * @param phaseNames names of the run's phases, stored so the reader can label them
+     * @throws IOException if the file can't be created or written
+     * @throws IllegalArgumentException if the phase names don't fit in the header
+     */
+    RawSampleLog(Path file, int segmentBytes, List<String> phaseNames) throws IOException {
+
+        checkPhaseNamesFit(phaseNames); // before the file is overwritten
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+           StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.segmentBytes = Math.max(segmentBytes / RECORD_BYTES, 1) * RECORD_BYTES;
+
+        writeHeader(phaseNames);
+
+        int stripes = Integer.highestOneBit(Math.max(2 * Runtime.getRuntime().availableProcessors() - 1, 1)) << 1;
+        this.segments = new AtomicReferenceArray<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            segments.set(i, mapNextSegment());
+        }
+
+        AtomicInteger nextStripe = new AtomicInteger();
+        this.currentThreadStripe = ThreadLocal.withInitial( // assign stripes round robin
+                () -> nextStripe.getAndIncrement() & (stripes - 1));
+    }
+
+    /** Each phase name takes its UTF-8 bytes plus a 2-byte length in the fixed-size header */
+    private static void checkPhaseNamesFit(List<String> phaseNames) {
+
+        int bytes = FIXED_HEADER_BYTES;
+        for (String phaseName : phaseNames) {
+            bytes += 2 + phaseName.getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (bytes > HEADER_BYTES) { // also keeps every name's length well within a short
+            throw new IllegalArgumentException("The phase names take " + (bytes - FIXED_HEADER_BYTES)
+               + " bytes of the raw sample log header, at most " + (HEADER_BYTES - FIXED_HEADER_BYTES)
+               + " fit: use fewer or shorter phase names");
+        }
+    }
+
+    /** Header: magic, version, record size, wall clock and nanoTime at the start of
+     * the run (so record times can be turned into dates), then the phase names
+     */
+    private void writeHeader(List<String> phaseNames) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        header.putLong(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(RECORD_BYTES);
+        header.putLong(System.currentTimeMillis());
+        header.putLong(System.nanoTime());
+        header.putInt(phaseNames.size());
+
+        for (String phaseName : phaseNames) {
+            byte[] name = phaseName.getBytes(StandardCharsets.UTF_8);
+            header.putShort((short) name.length);
+            header.put(name);
+        }
+
+        header.rewind();
+        channel.write(header, 0);
+    }
+
+    private Segment mapNextSegment() throws IOException {
+
+        long offset = nextSegmentOffset.getAndAdd(segmentBytes);
+        Segment segment = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, offset, segmentBytes));
+
+        mappedSegments.add(segment);
+        return segment;
+    }
+
+    /** Appends one request record for the calling thread
+     * @param startTime nanoTime when the request started
+     * @param durationNanos latency of the request
+     * @param phaseIndex index of the phase the request was sent in
+     * @param operation RequestBreakdown.GET or RequestBreakdown.POST
+     * @param status HTTP status of the response, -1 if there was none
+     */
+    void append(long startTime, long durationNanos, int phaseIndex, int operation, int status) {
+
+        int stripe = currentThreadStripe.get();
+
+        while (!failed) {
+
+            Segment segment = segments.get(stripe);
+            int position = segment.nextPosition.getAndAdd(RECORD_BYTES); // claim room for one record
+
+            if (position + RECORD_BYTES <= segmentBytes) { // fits: write straight into the mapping
+
+                MappedByteBuffer buffer = segment.buffer;
+                buffer.putLong(position, startTime);
+                buffer.putLong(position + 8, durationNanos);
+                buffer.putLong(position + 16, Thread.currentThread().threadId());
+                buffer.putInt(position + 24, status);
+                buffer.putShort(position + 28, (short) phaseIndex);
+                buffer.put(position + 30, (byte) operation);
+                buffer.put(position + 31, (byte) 1); // marker last, so a record is only valid once complete
+                return;
+            }
+
+            if (position == segmentBytes) { // we overflowed it first: map the next
+                try {
+                    segments.set(stripe, mapNextSegment());
+                } catch (IOException | RuntimeException e) { // stop logging, the requests carry on
+                    failed = true;
+                    System.out.println("Raw sample log stopped, later samples are dropped: " + e);
+                }
+            } else {
+                while (segments.get(stripe) == segment && !failed) { // someone else is mapping the next one
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /** @return true if the log stopped early because a segment couldn't be mapped */
+    boolean hasFailed() {
+
+        return failed;
+    }
+
+    /** Flushes every mapped segment to disk and closes the file */
+    void close() throws IOException {
+
+        for (Segment segment : mappedSegments) {
+            segment.buffer.force();
+        }
+        channel.close();
+    }
+
+    /** One mapped region of the file and the next free position in it */
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger nextPosition = new AtomicInteger();
+
+        private Segment(MappedByteBuffer buffer) {
+
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package cs6650App.app.src.main.java;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Rebuilds the StatisticsGatherer report from a raw sample log written by
+ * RawSampleLog, e.g. after a multi-hour run.
+ *
+ * Usage: RawSampleLogReader <log file> [--sigDigits=3] [--expectedInterval=20ms] [--exact]
+ *
+ * --exact also keeps every latency in a long[] and reports exact percentiles and the
+ * standard deviation from it (see ExactLatencyAnalysis), at 8 bytes per request.
+ *
+ * The log doesn't say which phases were closed-loop, so --expectedInterval corrects
+ * every phase for coordinated omission, assuming a user sent a request that often.
+ */
+class RawSampleLogReader {
+
+    private static final long MAX_MAPPED_BYTES = 1L << 30; // read the file in 1 GB windows
+
+    private final List<String> phaseNames = new ArrayList<>();
+    private long[] phaseStartTimes;
+    private long[] phaseFinishTimes;
+    private final long expectedIntervalNanos;
+    private final boolean keepSamples;
+    private long[] samples; // every latency, when keepSamples
+    private int sampleCount;
+
+    /** @param expectedIntervalNanos nanos a user was expected to take between requests, used to
+     *                              correct the latencies for coordinated omission, 0 for no correction
+     * @param keepSamples keep every latency for getExactAnalysis
+     */
+    RawSampleLogReader(long expectedIntervalNanos, boolean keepSamples) {
+
+        this.expectedIntervalNanos = expectedIntervalNanos;
+        this.keepSamples = keepSamples;
+    }
+
+    /** Reads the header, then feeds every valid record into StatisticsGatherer
+     * @param file the raw sample log
+     * @return number of records read
+     * @throws IOException if the file can't be read or isn't a raw sample log
+     */
+    long read(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            readHeader(channel);
+
+            StatisticsGatherer.configurePhases(phaseNames);
+
+            if (expectedIntervalNanos > 0) { // correct the replayed latencies for coordinated omission
+                boolean[] correctedPhases = new boolean[phaseNames.size()];
+                Arrays.fill(correctedPhases, true);
+                StatisticsGatherer.configureCoordinatedOmissionCorrection(expectedIntervalNanos, correctedPhases);
+            }
+
+            phaseStartTimes = new long[phaseNames.size()];
+            phaseFinishTimes = new long[phaseNames.size()];
+            Arrays.fill(phaseStartTimes, Long.MAX_VALUE);
+            Arrays.fill(phaseFinishTimes, Long.MIN_VALUE);
+
+            long records = 0;
+            long fileSize = channel.size();
+
+            if (keepSamples) { // at most one sample per record slot in the file
+                long maxRecords = (fileSize - RawSampleLog.HEADER_BYTES) / RawSampleLog.RECORD_BYTES;
+                if (maxRecords > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Too many records to keep every sample: " + maxRecords);
+                }
+                samples = new long[(int) Math.max(maxRecords, 0)];
+            }
+
+            for (long offset = RawSampleLog.HEADER_BYTES; offset < fileSize; offset += MAX_MAPPED_BYTES) {
+
+                long length = Math.min(MAX_MAPPED_BYTES, fileSize - offset);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+
+                for (int position = 0; position + RawSampleLog.RECORD_BYTES <= length;
+                     position += RawSampleLog.RECORD_BYTES) {
+
+                    if (buffer.get(position + 31) == 0) {
+                        continue; // unused space at the end of a segment
+                    }
+                    readRecord(buffer, position);
+                    records++;
+                }
+            }
+
+            updateWallTimes();
+            return records;
+        }
+    }
+
+    private void readHeader(FileChannel channel) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(RawSampleLog.HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.remaining() < 36 || header.getLong() != RawSampleLog.MAGIC) {
+            throw new IOException("Not a raw sample log");
+        }
+        int version = header.getInt();
+        int recordBytes = header.getInt();
+        if (version != RawSampleLog.VERSION || recordBytes != RawSampleLog.RECORD_BYTES) {
+            throw new IOException("Unsupported raw sample log version " + version);
+        }
+        header.getLong(); // wall clock at the start of the run
+        header.getLong(); // nanoTime at the start of the run
+
+        int phaseCount = header.getInt();
+        for (int i = 0; i < phaseCount; i++) {
+            byte[] name = new byte[header.getShort()];
+            header.get(name);
+            phaseNames.add(new String(name, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void readRecord(MappedByteBuffer buffer, int position) {
+
+        long startTime = buffer.getLong(position);
+        long durationNanos = buffer.getLong(position + 8);
+        int status = buffer.getInt(position + 24);
+        int phaseIndex = buffer.getShort(position + 28);
+        int operation = buffer.get(position + 30);
+
+        StatisticsGatherer.recordRequest(phaseIndex, operation, status, durationNanos);
+
+        if (samples != null) {
+            samples[sampleCount++] = durationNanos;
+        }
+
+        // the phase ran from its first request's start to its last request's finish
+        phaseStartTimes[phaseIndex] = Math.min(phaseStartTimes[phaseIndex], startTime);
+        phaseFinishTimes[phaseIndex] = Math.max(phaseFinishTimes[phaseIndex], startTime + durationNanos);
+    }
+
+    /** Sorts the kept samples and works out their exact statistics. Only once read has run
+     * with keepSamples; the samples are sorted in place.
+     * @return the exact statistics of every request read
+     */
+    ExactLatencyAnalysis getExactAnalysis() {
+
+        return new ExactLatencyAnalysis(samples, sampleCount);
+    }
+
+    private void updateWallTimes() {
+
+        long firstStart = Long.MAX_VALUE;
+        long lastFinish = Long.MIN_VALUE;
+
+        for (int i = 0; i < phaseNames.size(); i++) {
+            if (phaseStartTimes[i] == Long.MAX_VALUE) {
+                continue; // no requests in this phase
+            }
+            StatisticsGatherer.updatePhaseStartTime(phaseNames.get(i), phaseStartTimes[i]);
+            StatisticsGatherer.updatePhaseFinishTime(phaseNames.get(i), phaseFinishTimes[i]);
+            firstStart = Math.min(firstStart, phaseStartTimes[i]);
+            lastFinish = Math.max(lastFinish, phaseFinishTimes[i]);
+        }
+
+        if (firstStart != Long.MAX_VALUE) {
+            StatisticsGatherer.updateAllThreadsStartTime(firstStart);
+            StatisticsGatherer.updateAllThreadsFinishTime(lastFinish);
+            StatisticsGatherer.updateTotalWallTime(StatisticsGatherer.calcTotalWallTimeInSeconds());
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        ClientOptions options = ClientOptions.parse(args);
+
+        if (options.getPositionalArgs().isEmpty()) {
+            System.out.println("Usage: RawSampleLogReader <log file> [--sigDigits=3] [--expectedInterval=20ms] [--exact]");
+            return;
+        }
+
+        StatisticsGatherer.configureLatencyPrecision(options.getInt("sigDigits",
+           LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS));
+        StatisticsGatherer.updateLoadModel("replayed from raw sample log");
+        StatisticsGatherer.updateThreadMode("n/a");
+        StatisticsGatherer.updateTransportName("n/a");
+
+        boolean exact = options.getBoolean("exact", false);
+        RawSampleLogReader reader = new RawSampleLogReader(
+           ExecutionPlan.parseDurationNanos(options.getString("expectedInterval", "0")), exact);
+
+        long records = reader.read(Paths.get(options.getPositionalArgs().get(0)));
+
+        System.out.println("Read " + records + " request records");
+        StatisticsGatherer.printStatistics();
+
+        if (exact) {
+            System.out.println("--------------------------------------------------------------");
+            reader.getExactAnalysis().print();
+        }
+    }
+}
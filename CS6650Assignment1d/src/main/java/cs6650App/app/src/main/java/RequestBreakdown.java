@@ -0,0 +1,294 @@
+package cs6650App.app.src.main.java;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Latency statistics split by (phase, operation, status class), so that e.g.
+ * Warmup noise or failed requests don't hide in the numbers of the Peak phase.
+ *
+ * Every key gets its own latency recorder, created the first time the key is
+ * seen. After that, recording is a constant-time, allocation-free array lookup
+ * plus a histogram update.
+ */
+class RequestBreakdown {
+
+    static final int GET = 0;
+    static final int POST = 1;
+
+    private static final String[] OPERATION_NAMES = {"GET", "POST"};
+    private static final String[] STATUS_CLASS_NAMES = {"error", "1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final int RECORDERS_PER_KEY = 4; // keys only see traffic during their phase, keep them small
+
+    private final List<String> phaseNames;
+    private final int significantDigits;
+    private final AtomicReferenceArray<LatencyRecorder> recorders; // indexed by keyIndex()
+    private final long[] phaseStartTimes;
+    private final long[] phaseFinishTimes;
+
+    /** @param phaseNames names of the phases, in the order they run
+     * @param significantDigits decimal precision of the latency histograms
+     */
+    RequestBreakdown(List<String> phaseNames, int significantDigits) {
+
+        this.phaseNames = new ArrayList<>(phaseNames);
+        this.significantDigits = significantDigits;
+        this.recorders = new AtomicReferenceArray<>(
+           phaseNames.size() * OPERATION_NAMES.length * STATUS_CLASS_NAMES.length);
+        this.phaseStartTimes = new long[phaseNames.size()];
+        this.phaseFinishTimes = new long[phaseNames.size()];
+    }
+
+    List<String> getPhaseNames() {
+
+        return phaseNames;
+    }
+
+    /** @param phase name of a phase
+     * @return index of the phase, or -1 if it isn't one of this breakdown's phases
+     */
+    int phaseIndex(String phase) {
+
+        return phaseNames.indexOf(phase);
+    }
+
+    /** Maps an HTTP status to its class, 1xx to 5xx. Anything else, including the
+     * -1 used for requests that got no response, is an error
+     * @param status HTTP status of the response
+     * @return index into the status classes
+     */
+    static int statusClass(int status) {
+
+        int statusClass = status / 100;
+        return (statusClass >= 1 && statusClass <= 5) ? statusClass : 0;
+    }
+
+    private int keyIndex(int phaseIndex, int operation, int statusClass) {
+
+        return (phaseIndex * OPERATION_NAMES.length + operation) * STATUS_CLASS_NAMES.length + statusClass;
+    }
+
+    /** Records one request's latency under its key
+     * @param phaseIndex index of the phase the request was sent in
+     * @param operation GET or POST
+     * @param status HTTP status of the response, -1 if there was none
+     * @param latencyNanos latency of the request in nanoseconds
+     */
+    void record(int phaseIndex, int operation, int status, long latencyNanos) {
+
+        int key = keyIndex(phaseIndex, operation, statusClass(status));
+
+        LatencyRecorder recorder = recorders.get(key);
+
+        if (recorder == null) { // first request for this key, the only time recording allocates
+            recorders.compareAndSet(key, null, new LatencyRecorder(significantDigits, RECORDERS_PER_KEY));
+            recorder = recorders.get(key);
+        }
+        recorder.record(latencyNanos);
+    }
+
+    /** Writes the phase names, each phase's wall time and the histogram of every key that
+     * has requests. Wall times are written as durations, since nanoTimes of different
+     * JVMs can't be compared.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+
+        out.writeInt(phaseNames.size());
+        for (int phaseIndex = 0; phaseIndex < phaseNames.size(); phaseIndex++) {
+            out.writeUTF(phaseNames.get(phaseIndex));
+            out.writeLong(phaseFinishTimes[phaseIndex] - phaseStartTimes[phaseIndex]);
+        }
+
+        for (int key = 0; key < recorders.length(); key++) {
+            LatencyRecorder recorder = recorders.get(key);
+            if (recorder != null) {
+                out.writeInt(key);
+                recorder.snapshot().writeTo(out);
+            }
+        }
+        out.writeInt(-1); // end of keys
+    }
+
+    /** Reads back a breakdown written by writeTo
+     * @param in stream to read from
+     * @param significantDigits decimal precision for keys that have no histogram yet
+     * @return the breakdown, with each phase's wall time running from 0
+     * @throws IOException if reading fails
+     */
+    static RequestBreakdown readFrom(DataInputStream in, int significantDigits) throws IOException {
+
+        List<String> phaseNames = new ArrayList<>();
+        List<Long> wallTimes = new ArrayList<>();
+
+        int phaseCount = in.readInt();
+        for (int phaseIndex = 0; phaseIndex < phaseCount; phaseIndex++) {
+            phaseNames.add(in.readUTF());
+            wallTimes.add(in.readLong());
+        }
+
+        RequestBreakdown breakdown = new RequestBreakdown(phaseNames, significantDigits);
+        for (int phaseIndex = 0; phaseIndex < phaseCount; phaseIndex++) {
+            breakdown.phaseFinishTimes[phaseIndex] = wallTimes.get(phaseIndex);
+        }
+
+        int key;
+        while ((key = in.readInt()) >= 0) {
+            LatencyHistogram histogram = LatencyHistogram.readFrom(in);
+            LatencyRecorder recorder = new LatencyRecorder(histogram.getSignificantDigits(), 1);
+            recorder.add(histogram);
+            breakdown.recorders.set(key, recorder);
+        }
+        return breakdown;
+    }
+
+    /** Merges another breakdown of the same phases into this one. Counts are added, and
+     * each phase's wall time becomes the longer of the two, since merged runs (e.g. the
+     * workers of a distributed run) start their phases at the same time.
+     * @param other breakdown to merge in
+     */
+    void add(RequestBreakdown other) {
+
+        if (!other.phaseNames.equals(phaseNames)) {
+            throw new IllegalArgumentException("Cannot merge phases " + other.phaseNames + " into " + phaseNames);
+        }
+
+        for (int phaseIndex = 0; phaseIndex < phaseNames.size(); phaseIndex++) {
+            long otherWallTime = other.phaseFinishTimes[phaseIndex] - other.phaseStartTimes[phaseIndex];
+            if (otherWallTime > phaseFinishTimes[phaseIndex] - phaseStartTimes[phaseIndex]) {
+                phaseStartTimes[phaseIndex] = 0;
+                phaseFinishTimes[phaseIndex] = otherWallTime;
+            }
+        }
+
+        for (int key = 0; key < recorders.length(); key++) {
+            LatencyRecorder otherRecorder = other.recorders.get(key);
+            if (otherRecorder == null) {
+                continue;
+            }
+            LatencyHistogram histogram = otherRecorder.snapshot();
+            if (recorders.get(key) == null) {
+                recorders.set(key, new LatencyRecorder(histogram.getSignificantDigits(), 1));
+            }
+            recorders.get(key).add(histogram);
+        }
+    }
+
+    void updatePhaseStartTime(int phaseIndex, long time) {
+
+        phaseStartTimes[phaseIndex] = time;
+    }
+
+    void updatePhaseFinishTime(int phaseIndex, long time) {
+
+        phaseFinishTimes[phaseIndex] = time;
+    }
+
+    /** @return wall time of a phase in seconds, from all its threads started to all finished */
+    private double phaseWallTimeInSeconds(int phaseIndex) {
+
+        return (phaseFinishTimes[phaseIndex] - phaseStartTimes[phaseIndex]) / 1e9;
+    }
+
+    /** Receives the histogram of one (phase, operation, status class) key */
+    interface KeyVisitor {
+
+        void visit(String phase, String operation, String statusClass, LatencyHistogram histogram);
+    }
+
+    /** Hands a snapshot of every key that has any requests to the visitor, in table order
+     * @param visitor receives each key's names and histogram
+     */
+    void forEachKey(KeyVisitor visitor) {
+
+        for (int phaseIndex = 0; phaseIndex < phaseNames.size(); phaseIndex++) {
+            for (int operation = 0; operation < OPERATION_NAMES.length; operation++) {
+                for (int statusClass = 0; statusClass < STATUS_CLASS_NAMES.length; statusClass++) {
+
+                    LatencyRecorder recorder = recorders.get(keyIndex(phaseIndex, operation, statusClass));
+
+                    if (recorder != null) {
+                        visitor.visit(phaseNames.get(phaseIndex), OPERATION_NAMES[operation],
+                           STATUS_CLASS_NAMES[statusClass], recorder.snapshot());
+                    }
+                }
+            }
+        }
+    }
+
+    /** Prints one row per (phase, operation, status class) that has any requests, with
+     * count, throughput over the phase's wall time and latencies in milliseconds
+     */
+    void printTable() {
+
+        String rowFormat = "%-15s %-5s %-6s %10s %10s %9s %9s %9s %9s %9s %9s%n";
+
+        System.out.printf(rowFormat, "Phase", "Op", "Status", "Count", "Req/s",
+           "Mean ms", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "Max ms");
+
+        for (int phaseIndex = 0; phaseIndex < phaseNames.size(); phaseIndex++) {
+            for (int operation = 0; operation < OPERATION_NAMES.length; operation++) {
+                for (int statusClass = 0; statusClass < STATUS_CLASS_NAMES.length; statusClass++) {
+
+                    LatencyRecorder recorder = recorders.get(keyIndex(phaseIndex, operation, statusClass));
+
+                    if (recorder == null) {
+                        continue; // nothing recorded for this key
+                    }
+
+                    LatencyHistogram histogram = recorder.snapshot();
+                    double wallTime = phaseWallTimeInSeconds(phaseIndex);
+
+                    System.out.printf(rowFormat, phaseNames.get(phaseIndex), OPERATION_NAMES[operation],
+                       STATUS_CLASS_NAMES[statusClass], histogram.getTotalCount(),
+                       wallTime > 0 ? String.format("%.1f", histogram.getTotalCount() / wallTime) : "n/a",
+                       millis(histogram.getMean()), millis(histogram.getValueAtPercentile(.50)),
+                       millis(histogram.getValueAtPercentile(.95)), millis(histogram.getValueAtPercentile(.99)),
+                       millis(histogram.getValueAtPercentile(.999)), millis(histogram.getMaxValue()));
+                }
+            }
+        }
+    }
+
+    /** Prints one line per phase with its wall time, throughput and effective concurrency.
+     * Effective concurrency is the average number of requests in flight over the phase's
+     * wall time (total latency / wall time, by Little's law), so idle stretches such as
+     * waiting on the last stragglers of a phase show up as lower concurrency.
+     */
+    void printPhaseSummary() {
+
+        String rowFormat = "%-15s %10s %10s %10s %12s%n";
+
+        System.out.printf(rowFormat, "Phase", "Wall s", "Requests", "Req/s", "Concurrency");
+
+        for (int phaseIndex = 0; phaseIndex < phaseNames.size(); phaseIndex++) {
+
+            long requests = 0;
+            double totalLatency = 0; // nanos spent in flight by all the phase's requests
+
+            for (int key = keyIndex(phaseIndex, 0, 0); key < keyIndex(phaseIndex + 1, 0, 0); key++) {
+                LatencyRecorder recorder = recorders.get(key);
+                if (recorder != null) {
+                    LatencyHistogram histogram = recorder.snapshot();
+                    requests += histogram.getTotalCount();
+                    totalLatency += histogram.getMean() * histogram.getTotalCount();
+                }
+            }
+
+            double wallTime = phaseWallTimeInSeconds(phaseIndex);
+
+            System.out.printf(rowFormat, phaseNames.get(phaseIndex), String.format("%.3f", wallTime), requests,
+               wallTime > 0 ? String.format("%.1f", requests / wallTime) : "n/a",
+               wallTime > 0 ? String.format("%.2f", totalLatency / 1e9 / wallTime) : "n/a");
+        }
+    }
+
+    private static String millis(double nanos) {
+
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
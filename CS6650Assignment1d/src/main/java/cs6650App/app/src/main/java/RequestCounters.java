@@ -0,0 +1,127 @@
+package cs6650App.app.src.main.java;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/** The client's request counters: responses that were a success, the ones that weren't,
+ * and open-loop requests sent later than scheduled, as 64-bit totals.
+ *
+ * Every recording thread counts into one of a fixed set of cells picked by its thread id,
+ * so threads on different cores rarely update the same memory. The cells are laid out in
+ * one long[] a padded stride apart (two 64-byte cache lines, so the adjacent-line prefetch
+ * doesn't pair them up either), which keeps a cell from sharing a line with its
+ * neighbours, something padding fields in a class can't guarantee once the JVM reorders
+ * them. A cell can still be shared by a few threads, so it is updated atomically.
+ *
+ * The request count isn't a counter of its own: a request is counted when its response
+ * (or failure) is, so requests are always successes + failures, in a snapshot too. Reading
+ * never blocks the recording threads.
+ */
+class RequestCounters {
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int STRIDE = 16; // longs between two cells: 128 bytes
+    private static final int SUCCESSES = 0; // offsets of the counters in a cell
+    private static final int FAILURES = 1;
+    private static final int MISSED_SCHEDULES = 2;
+    private static final int MAX_CELLS = 256;
+
+    /** The totals at one point in time */
+    static class Snapshot {
+
+        private final long successes;
+        private final long failures;
+        private final long missedSchedules;
+
+        Snapshot(long successes, long failures, long missedSchedules) {
+
+            this.successes = successes;
+            this.failures = failures;
+            this.missedSchedules = missedSchedules;
+        }
+
+        long getRequests() {
+
+            return successes + failures;
+        }
+
+        long getSuccesses() {
+
+            return successes;
+        }
+
+        long getFailures() {
+
+            return failures;
+        }
+
+        long getMissedSchedules() {
+
+            return missedSchedules;
+        }
+
+        /** @param earlier a snapshot taken before this one
+         * @return what was counted between the two snapshots, e.g. one window of a live report
+         */
+        Snapshot since(Snapshot earlier) {
+
+            return new Snapshot(successes - earlier.successes, failures - earlier.failures,
+               missedSchedules - earlier.missedSchedules);
+        }
+    }
+
+    private final long[] cells; // the first and last STRIDE longs are padding
+    private final int cellMask;
+
+    RequestCounters() {
+
+        int wantedCells = Math.min(MAX_CELLS, Runtime.getRuntime().availableProcessors() * 4);
+        int cellCount = Integer.highestOneBit(wantedCells * 2 - 1); // rounded up to a power of two
+        this.cellMask = cellCount - 1;
+        this.cells = new long[(cellCount + 2) * STRIDE]; // padded away from the array header and what follows
+    }
+
+    /** Counts one request and its response
+     * @param success true if it was answered with a 200, or a 304 to a conditional GET
+     */
+    void recordResponse(boolean success) {
+
+        CELLS.getAndAdd(cells, cellOffset() + (success ? SUCCESSES : FAILURES), 1L);
+    }
+
+    void recordMissedSchedule() {
+
+        CELLS.getAndAdd(cells, cellOffset() + MISSED_SCHEDULES, 1L);
+    }
+
+    /** Adds totals counted elsewhere, e.g. by another worker of a distributed run */
+    void add(long successes, long failures, long missedSchedules) {
+
+        CELLS.getAndAdd(cells, STRIDE + SUCCESSES, successes);
+        CELLS.getAndAdd(cells, STRIDE + FAILURES, failures);
+        CELLS.getAndAdd(cells, STRIDE + MISSED_SCHEDULES, missedSchedules);
+    }
+
+    /** @return the totals counted so far */
+    Snapshot snapshot() {
+
+        long successes = 0;
+        long failures = 0;
+        long missedSchedules = 0;
+
+        for (int cell = STRIDE; cell < cells.length - STRIDE; cell += STRIDE) {
+            successes += (long) CELLS.getVolatile(cells, cell + SUCCESSES);
+            failures += (long) CELLS.getVolatile(cells, cell + FAILURES);
+            missedSchedules += (long) CELLS.getVolatile(cells, cell + MISSED_SCHEDULES);
+        }
+        return new Snapshot(successes, failures, missedSchedules);
+    }
+
+    /** @return index of the calling thread's cell in the array */
+    private int cellOffset() {
+
+        long id = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L; // spread sequential ids over the cells
+        return ((int) (id >>> 40) & cellMask) * STRIDE + STRIDE;
+    }
+}
@@ -0,0 +1,95 @@
+package cs6650App.app.src.main.java;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Where the time of each request went, as measured by InstrumentedTransport: name lookup,
+ * TCP connect and TLS handshake for requests that needed a new connection, then the time
+ * to the first byte of the response (request sent, server and Lambda execution, first
+ * packet back) and the time to read the rest of it. Also counts how many requests could
+ * reuse a kept-alive connection.
+ */
+class RequestTimings {
+
+    private static final int RECORDERS_PER_STAGE = 4;
+
+    private final LatencyRecorder dns;
+    private final LatencyRecorder connect;
+    private final LatencyRecorder tls;
+    private final LatencyRecorder timeToFirstByte;
+    private final LatencyRecorder bodyRead;
+    private final AtomicLong newConnections = new AtomicLong();
+    private final AtomicLong reusedConnections = new AtomicLong();
+    private final AtomicLong staleConnections = new AtomicLong(); // kept-alive connections the server had closed
+
+    /** @param significantDigits decimal precision of the stage histograms */
+    RequestTimings(int significantDigits) {
+
+        dns = new LatencyRecorder(significantDigits, RECORDERS_PER_STAGE);
+        connect = new LatencyRecorder(significantDigits, RECORDERS_PER_STAGE);
+        tls = new LatencyRecorder(significantDigits, RECORDERS_PER_STAGE);
+        timeToFirstByte = new LatencyRecorder(significantDigits, RECORDERS_PER_STAGE);
+        bodyRead = new LatencyRecorder(significantDigits, RECORDERS_PER_STAGE);
+    }
+
+    /** Records the setup of a new connection
+     * @param dnsNanos time to resolve the host name
+     * @param connectNanos time to open the TCP connection
+     * @param tlsNanos time of the TLS handshake, -1 for plain http
+     */
+    void recordNewConnection(long dnsNanos, long connectNanos, long tlsNanos) {
+
+        newConnections.getAndIncrement();
+        dns.record(dnsNanos);
+        connect.record(connectNanos);
+        if (tlsNanos >= 0) {
+            tls.record(tlsNanos);
+        }
+    }
+
+    void recordReusedConnection() {
+
+        reusedConnections.getAndIncrement();
+    }
+
+    void recordStaleConnection() {
+
+        staleConnections.getAndIncrement();
+    }
+
+    /** Records the exchange itself, whatever connection it was sent on
+     * @param timeToFirstByteNanos from starting to send the request until the first byte of the response
+     * @param bodyReadNanos from the first byte of the response until its last
+     */
+    void recordExchange(long timeToFirstByteNanos, long bodyReadNanos) {
+
+        timeToFirstByte.record(timeToFirstByteNanos);
+        bodyRead.record(bodyReadNanos);
+    }
+
+    /** Prints a row per stage and the connection reuse ratio */
+    void print() {
+
+        System.out.println("Request timing breakdown (ms):");
+        System.out.printf("  %-16s %10s %10s %10s %10s %10s%n", "Stage", "Count", "Mean", "p50", "p99", "Max");
+        printStage("DNS lookup", dns);
+        printStage("TCP connect", connect);
+        printStage("TLS handshake", tls);
+        printStage("Time to 1st byte", timeToFirstByte);
+        printStage("Body read", bodyRead);
+
+        long created = newConnections.get();
+        long reused = reusedConnections.get();
+        System.out.printf("  Connections: %d new, %d reused, reuse ratio %.2f%%, %d stale kept-alive connections"
+              + " replaced%n", created, reused, created + reused == 0 ? 0.0 : 100.0 * reused / (created + reused),
+           staleConnections.get());
+    }
+
+    private static void printStage(String stage, LatencyRecorder recorder) {
+
+        LatencyHistogram histogram = recorder.snapshot();
+
+        System.out.printf("  %-16s %10d %10.3f %10.3f %10.3f %10.3f%n", stage, histogram.getTotalCount(),
+           histogram.getMean() / 1e6, histogram.getValueAtPercentile(.5) / 1e6,
+           histogram.getValueAtPercentile(.99) / 1e6, histogram.getMaxValue() / 1e6);
+    }
+}
@@ -1,8 +1,18 @@
 package cs6650App.app.src.main.java;
 
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
 import java.time.LocalDateTime;
 import org.jetbrains.annotations.NotNull;
 
@@ -17,6 +27,9 @@ import org.jetbrains.annotations.NotNull;
  *  -Peak: Creates 100% of the max threads input
  *  -Cool Down: Creates 25% of the max threads input
  *
+ * A scenario file (--scenario) can replace these with any phases and any weighted
+ * mix of requests, see ExecutionPlan.
+ *
  * Statistics are gathered on how much time it takes for all the threads to complete,
  * number of requests,throughput, mean/median/99th/95th percentile latency of the requests
  */
@@ -27,6 +40,17 @@ class SimpleGetPostClient {
     private static ArrayList<String> phaseNames = new ArrayList<>(); // list of phases used in the simulation
     private static String firstPhase; // first phase of the simulation
     private static String lastPhase; // last phase of the simulation
+    private static double targetRate; // open-loop peak requests per second, 0 for closed-loop
+    private static boolean rampRate; // open-loop: ramp linearly from the previous phase's rate
+    private static long missedScheduleTolerance; // open-loop: nanos a request can be late before it is missed
+    private static ExecutionEngine executionEngine; // runs the simulated users on platform or virtual threads
+    private static boolean asyncMode; // drive each phase from one task through the non-blocking client
+    private static int inFlightLimit; // async mode: max in-flight requests at peak, 0 for one per phase thread
+    private static long phaseDuration; // default plan: nanos each phase runs for, 0 to run until iterations are done
+    private static long phaseRampUp; // default plan, continuous mode: nanos to reach each phase's threads
+    private static int phaseRampSteps; // default plan, continuous mode: steps of the ramp, 0 for linear
+
+    private static final long RAMP_TICK_NANOS = 10000000L; // continuous mode: how often the user count is adjusted
 
     /* Getters and Setters ****************************************/
 
@@ -108,34 +132,128 @@ class SimpleGetPostClient {
         return phaseThreads;
     }
 
-    /** Calculates the amount of threads to generate based on the specific phase,
-     * kicks off each phase, and waits for threads to finish for a given phase
-     * @param phaseNames list of phases that the simulation runs through, can't be null
+    /** Builds the plan the client runs when no scenario file is given: the 4 phases,
+     * each thread sending one Get and one Post per iteration
      * @param maxThreads max amt of threads, from which amt of threads for each phase is calculated
      * @param numIterations the number of times each thread should call its Get and Post methods
-     * @param ipAddress the ip address of the server to connect to
+     * @param ipAddress the ip address of the server to connect to, e.g. the embedded server,
+     *                  or null for the deployed API Gateway URIs
      * @param serverPort the port of the server to connect to
+     * @return the default execution plan
      */
-    private static void launchPhaseThenAwaitThreadStartAndFinish
-    (@NotNull ArrayList<String> phaseNames, int maxThreads, int numIterations,
-     String ipAddress, String serverPort) {
+    private static ExecutionPlan createDefaultPlan(int maxThreads, int numIterations,
+         String ipAddress, String serverPort) {
+
+        List<PlannedPhase> phases = new ArrayList<>();
+
+        phaseNames = createPhaseNames(phaseNames); // create the list of phases
 
         for (String phase : phaseNames) { // for each phase
 
             int phaseThreads = calculatePhaseThreadNum(phase, maxThreads); // calc # of threads needed
 
+            phases.add(new PlannedPhase(phase, phaseThreads, numIterations, phaseDuration, // open-loop: the phase's
+               targetRate * phaseThreads / maxThreads, phaseRampUp, phaseRampSteps)); // rate scales with its threads
+        }
+
+        String postUri = ipAddress != null // compose the URIs based on the inputs
+           ? "http://" + ipAddress + ":" + serverPort + "/testing/tests/" : GetPostThread.DEFAULT_POST_URI;
+        String getUri = ipAddress != null ? postUri + "test" : GetPostThread.DEFAULT_GET_URI;
+
+        List<PlannedOperation> operations = new ArrayList<>();
+        operations.add(new PlannedOperation("get", RequestBreakdown.GET, getUri, null, 0));
+        operations.add(new PlannedOperation("post", RequestBreakdown.POST, postUri, "{ 'alive':'alive' }", 0));
+
+        List<Integer> weights = new ArrayList<>();
+        weights.add(1); // one Get to one Post
+        weights.add(1);
+
+        return new ExecutionPlan(phases, operations, weights);
+    }
+
+    /** @return the URI of the plan's first GET, or of its first request if it has no GETs */
+    private static String probeUri(ExecutionPlan plan) {
+
+        for (PlannedOperation operation : plan.getOperationSequence()) {
+            if (operation.getOperation() == RequestBreakdown.GET) {
+                return operation.getUri();
+            }
+        }
+        return plan.getOperationSequence()[0].getUri();
+    }
+
+    /** Kicks off each phase of the plan, and waits for threads to finish for a given phase
+     * @param plan the phases to run and the operations their threads send, can't be null
+     */
+    private static void launchPhaseThenAwaitThreadStartAndFinish(@NotNull ExecutionPlan plan) {
+
+        launchPhaseThenAwaitThreadStartAndFinish(plan.getPhases(), plan.getOperationSequence());
+    }
+
+    /** Kicks off each of the phases, and waits for threads to finish for a given phase
+     * @param phases the phases to run, in order, can't be empty
+     * @param operationSequence the operations each thread sends per iteration
+     */
+    private static void launchPhaseThenAwaitThreadStartAndFinish(List<PlannedPhase> phases,
+         PlannedOperation[] operationSequence) {
+
+        firstPhase = phases.get(0).getName();
+        lastPhase = phases.get(phases.size() - 1).getName();
+
+        int maxThreads = 1; // the peak, async in-flight limits scale from it
+        for (PlannedPhase phase : phases) {
+            maxThreads = Math.max(maxThreads, phase.getThreads());
+        }
+
+        double previousPhaseRate = 0;
+
+        for (PlannedPhase plannedPhase : phases) { // for each phase
+
+            String phase = plannedPhase.getName();
+            int phaseThreads = plannedPhase.getThreads();
+
+            int phaseTasks = asyncMode ? 1 : phaseThreads; // async mode drives the phase from one task
+
             /* Start a count down until all threads are started,
              * and a count down until all threads are finished */
-            CountDownLatch countDownLatchStart = new CountDownLatch(phaseThreads);
-            CountDownLatch countDownLatchFinish = new CountDownLatch(phaseThreads);
+            CountDownLatch countDownLatchStart = new CountDownLatch(phaseTasks);
+            CountDownLatch countDownLatchFinish = new CountDownLatch(phaseTasks);
 
             setCountDownLatchFinishTotal(countDownLatchFinish);
+            StatisticsGatherer.configureActiveUsersGauge(() -> (int) countDownLatchFinish.getCount());
+            StatisticsGatherer.updateCurrentPhase(phase); // requests from now on count towards this phase
+
+            long submitStartTime = System.nanoTime(); // to measure how long starting the phase's threads takes
+
+            if (asyncMode) { // event-loop: the phase's requests share one in-flight limit
+
+                int phaseInFlight = inFlightLimit > 0
+                   ? Math.max(1, (int) ((long) inFlightLimit * phaseThreads / maxThreads)) : phaseThreads;
+
+                submitAsyncPipelineForPhase(plannedPhase, operationSequence, submitStartTime, phaseInFlight,
+                        countDownLatchStart, countDownLatchFinish);
+
+            } else if (plannedPhase.isOpenLoop()) {
+
+                double phaseRate = plannedPhase.getRate();
+                double phaseStartRate = (rampRate && previousPhaseRate > 0) ? previousPhaseRate : phaseRate;
+                previousPhaseRate = phaseRate;
+
+                submitOpenLoopTasksForPhase(plannedPhase, operationSequence, phaseStartRate,
+                        countDownLatchStart, countDownLatchFinish);
 
-            submitLoadTesterTasksForPhase(phase, phaseThreads, numIterations, // generate threads based on inputs
-                    ipAddress, serverPort, countDownLatchStart, countDownLatchFinish);
+            } else {
+
+                submitLoadTesterTasksForPhase(plannedPhase, operationSequence, submitStartTime, // generate threads
+                        countDownLatchStart, countDownLatchFinish);
+            }
 
             long startTime = awaitStart(countDownLatchStart, phase); // get the time when all threads have started
 
+            StatisticsGatherer.updatePhaseStartupStatistics(phase, phaseTasks, // memory with all threads running
+               startTime - submitStartTime, ExecutionEngine.usedHeapBytes(),
+               ExecutionEngine.residentSetBytes(), ExecutionEngine.livePlatformThreads());
+
             if(phase.equals(firstPhase)) { // if we're in the first phase
                 StatisticsGatherer.updateAllThreadsStartTime(startTime); // start time == start time for all threads
             }
@@ -145,29 +263,151 @@ class SimpleGetPostClient {
         }
     }
 
-    /** Creates and starts the threads for a given phase with all the proper inputs
-     * @param phase name of the simulation phase
-     * @param phaseThreads number of threads that phase should generate
-     * @param numIterations number of times each thread should call its methods
-     * @param ipAddress address of the server to be connected to
-     * @param serverPort port of the server to be connected to
+    /** Creates and starts the threads (platform or virtual) for a given phase with all the proper inputs
+     * @param phase the simulation phase
+     * @param operationSequence the operations each thread sends per iteration
+     * @param phaseStartTime nanoTime the phase's duration counts from
      * @param countDownLatchStart based on phase threads, determine when all threads have started
      * @param countDownLatchFinish based on phase threads, determine when all threads have finished
      */
-    private static void submitLoadTesterTasksForPhase(String phase, int phaseThreads,
-         int numIterations, String ipAddress, String serverPort,
-         CountDownLatch countDownLatchStart, CountDownLatch countDownLatchFinish) {
+    private static void submitLoadTesterTasksForPhase(PlannedPhase phase, PlannedOperation[] operationSequence,
+         long phaseStartTime, CountDownLatch countDownLatchStart, CountDownLatch countDownLatchFinish) {
 
-        for(int i = 0; i < phaseThreads; i++) {  // for each thread of this phase
+        for(int i = 0; i < phase.getThreads(); i++) {  // for each thread of this phase
 
-            GetPostThread getPostThread = new GetPostThread(numIterations, ipAddress,
-               serverPort, countDownLatchStart, countDownLatchFinish); // generate a new thread with these inputs
+            GetPostThread getPostThread = new GetPostThread(phase, operationSequence, phaseStartTime,
+               countDownLatchStart, countDownLatchFinish); // generate a new thread with these inputs
 
-            getPostThread.start(); // start the thread
+            executionEngine.execute(getPostThread); // start the thread
             countDownLatchStart.countDown(); // set the countdown
         }
     }
 
+    /** Creates and starts the open-loop threads for a given phase. An iteration-bound phase
+     * sends as many requests as the closed-loop mode would (threads * iterations * operations),
+     * a duration-bound one as many as its rate fits into the duration, whichever is fewer,
+     * but at a target rate instead of as fast as responses come back.
+     * @param phase the simulation phase, its rate is the rate at the end of the phase
+     * @param operationSequence the operations sent in turn
+     * @param startRate requests per second at the start of the phase
+     * @param countDownLatchStart based on phase threads, determine when all threads have started
+     * @param countDownLatchFinish based on phase threads, determine when all threads have finished
+     */
+    private static void submitOpenLoopTasksForPhase(PlannedPhase phase, PlannedOperation[] operationSequence,
+         double startRate, CountDownLatch countDownLatchStart, CountDownLatch countDownLatchFinish) {
+
+        double endRate = phase.getRate();
+        System.out.println(phase.getName() + ": target rate " + startRate + " -> " + endRate + " requests/second");
+
+        long totalRequests = Long.MAX_VALUE;
+
+        if (phase.getIterations() > 0) {
+            totalRequests = phase.getThreads() * phase.getIterations() * operationSequence.length;
+        }
+        if (phase.getDurationNanos() > 0) { // the average rate of a linear ramp is its midpoint
+            totalRequests = Math.min(totalRequests,
+               (long) ((startRate + endRate) / 2 * phase.getDurationNanos() / 1e9));
+        }
+
+        ArrivalSchedule arrivalSchedule = new ArrivalSchedule(System.nanoTime(), totalRequests, startRate, endRate);
+
+        for(int i = 0; i < phase.getThreads(); i++) {  // for each thread of this phase
+
+            OpenLoopThread openLoopThread = new OpenLoopThread(arrivalSchedule,
+               missedScheduleTolerance, operationSequence, countDownLatchFinish);
+
+            executionEngine.execute(openLoopThread); // start the thread
+            countDownLatchStart.countDown(); // set the countdown
+        }
+    }
+
+    /** Starts the task that drives a phase's requests through the non-blocking client.
+     * The phase sends as many requests as the thread-per-user mode would, with up to
+     * phaseInFlight of them waiting for a response at a time.
+     * @param phase the simulation phase
+     * @param operationSequence the operations sent in turn
+     * @param phaseStartTime nanoTime the phase's duration counts from
+     * @param phaseInFlight max in-flight requests for the phase
+     * @param countDownLatchStart counted down once the driver task is started
+     * @param countDownLatchFinish counted down once every response of the phase is back
+     */
+    private static void submitAsyncPipelineForPhase(PlannedPhase phase, PlannedOperation[] operationSequence,
+         long phaseStartTime, int phaseInFlight,
+         CountDownLatch countDownLatchStart, CountDownLatch countDownLatchFinish) {
+
+        System.out.println(phase.getName() + ": up to " + phaseInFlight + " requests in flight");
+
+        executionEngine.execute(new AsyncGetPostPipeline(phase, operationSequence, phaseStartTime,
+           phaseInFlight, countDownLatchFinish)); // start the driver
+        countDownLatchStart.countDown();
+    }
+
+    /** Runs the plan's phases back to back on one pool of users, for each phase's duration.
+     * There is no barrier between phases: at a phase boundary the user count starts moving
+     * towards the new phase's threads (at once, or over its ramp), users that are no longer
+     * needed retire after their current request and threads are handed on to the next phase.
+     * @param plan the phases to run, all with a duration, and the operations the users send
+     * @throws InterruptedException if interrupted while waiting for the last requests
+     */
+    private static void runContinuousPhases(@NotNull ExecutionPlan plan) throws InterruptedException {
+
+        List<PlannedPhase> phases = plan.getPhases();
+        UserPool userPool = new UserPool(plan.getOperationSequence(), executionEngine);
+        StatisticsGatherer.configureActiveUsersGauge(userPool::getActiveUsers);
+
+        int previousThreads = 0;
+        long phaseStartTime = System.nanoTime();
+        long lastPhaseStartTime = phaseStartTime;
+        StatisticsGatherer.updateAllThreadsStartTime(phaseStartTime);
+
+        for (PlannedPhase phase : phases) { // for each phase
+
+            lastPhaseStartTime = phaseStartTime;
+            StatisticsGatherer.updateCurrentPhase(phase.getName()); // requests from now on count towards this phase
+            StatisticsGatherer.updatePhaseStartTime(phase.getName(), phaseStartTime);
+
+            System.out.println(phase.getName() + ": " + previousThreads + " -> " + phase.getThreads() + " users"
+               + (phase.getRampNanos() > 0 ? " over " + phase.getRampNanos() / (float) 1000000000 + " seconds"
+               + (phase.getRampSteps() > 0 ? " in " + phase.getRampSteps() + " steps" : ", linear") : ""));
+
+            long phaseEndTime = phaseStartTime + phase.getDurationNanos();
+            long now;
+
+            while ((now = System.nanoTime()) - phaseEndTime < 0) { // adjust the users until the phase is over
+
+                long elapsed = now - phaseStartTime;
+                userPool.setActiveUsers(phase.threadsAt(previousThreads, elapsed));
+
+                long waitTime = elapsed < phase.getRampNanos()
+                   ? Math.min(RAMP_TICK_NANOS, phaseEndTime - now) : phaseEndTime - now; // ramp done, just wait
+                LockSupport.parkNanos(waitTime);
+            }
+
+            if (phase != phases.get(phases.size() - 1)) { // the next phase starts right where this one ends
+                StatisticsGatherer.updatePhaseFinishTime(phase.getName(), phaseEndTime);
+                System.out.println(phase.getName() + " complete: Time "
+                   + phase.getDurationNanos() / (float) 1000000000 + " seconds");
+                System.out.println("-------------------------------------------------");
+            }
+
+            previousThreads = phase.getThreads();
+            phaseStartTime = phaseEndTime;
+        }
+
+        userPool.stop(); // retire every user and wait for the last requests to come back
+
+        long endTime = System.nanoTime();
+        String lastPhase = phases.get(phases.size() - 1).getName();
+        StatisticsGatherer.updatePhaseFinishTime(lastPhase, endTime);
+        StatisticsGatherer.updateAllThreadsFinishTime(endTime);
+        StatisticsGatherer.updateTotalWallTime(StatisticsGatherer.calcTotalWallTimeInSeconds());
+
+        System.out.println(lastPhase + " complete: Time " // includes waiting for the last responses
+           + (endTime - lastPhaseStartTime) / (float) 1000000000 + " seconds");
+        System.out.println(userPool.getStartedUsers() + " threads started over the run, reused across phases");
+        System.out.println("-------------------------------------------------");
+    }
+
     /** Based on a phase and a count down, wait for all the threads to start
      * for that phase, print notification to console, and return the time
      * when all the threads for the phase have started.
@@ -182,6 +422,7 @@ class SimpleGetPostClient {
         try {
             countDownLatchStart.await(); // wait for all threads to start
             startTime = System.nanoTime(); // when done, set start time to current sys time
+            StatisticsGatherer.updatePhaseStartTime(phase, startTime); // phase wall time starts now
             System.out.println(phase + ": All threads are running "); // print notification to console
 
         } catch (InterruptedException e) {
@@ -206,6 +447,7 @@ class SimpleGetPostClient {
         try {
             countDownLatchFinish.await(); // wait for all threads to finish
             endTime = System.nanoTime(); // set finish time for the current system time
+            StatisticsGatherer.updatePhaseFinishTime(phase, endTime);
 
             if(phase.equals(lastPhase)) { // if this phase is the last phase
 
@@ -234,13 +476,152 @@ class SimpleGetPostClient {
 
     }
 
-    public static void main(String[] args) throws InterruptedException {
+    /** Creates the transport the threads send their requests through
+     * @param transport 'jaxrs', 'instrumented' or 'http2'
+     * @param options the command line options, for the transport's settings
+     * @return the transport, shared by all threads
+     */
+    private static HttpTransport createTransport(String transport, ClientOptions options) {
+
+        int poolSize = options.getInt("poolSize", JaxRsTransport.DEFAULT_POOL_SIZE);
+
+        switch (transport) {
+            case "jaxrs":
+                return new JaxRsTransport(options.getBoolean("pooled", true), poolSize);
+            case "instrumented": // times every stage of every request
+                RequestTimings timings = new RequestTimings(options.getInt("sigDigits",
+                   LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS));
+                StatisticsGatherer.configureRequestTimings(timings);
+                return new InstrumentedTransport(poolSize, timings);
+            case "http2": // multiplexes the threads' requests over a few connections
+                return new Http2Transport(options.getInt("h2Connections", Http2Transport.DEFAULT_CONNECTIONS),
+                   options.getInt("maxStreams", Http2Transport.DEFAULT_MAX_STREAMS));
+            default:
+                throw new IllegalArgumentException("Unknown transport " + transport
+                   + ", use jaxrs, instrumented or http2");
+        }
+    }
+
+    /** Creates the transport, and the POST batcher and GET cache on top of it if they are
+     * on, and hands them to the threads
+     * @param transportName the transport to create, see createTransport
+     * @param options the command line options
+     * @return the transport, shared by all threads
+     */
+    private static HttpTransport configureTransport(String transportName, ClientOptions options) {
+
+        HttpTransport transport = createTransport(transportName, options);
+        GetPostThread.setTransport(transport);
+
+        int batchSize = options.getInt("batchSize", 0);
+
+        if (batchSize > 1) { // users' POSTs go out together instead of one per round trip
+            if (asyncMode) {
+                throw new IllegalArgumentException("--batchSize batches the users' blocking POSTs, it can't be "
+                   + "combined with --async");
+            }
+            PostBatcher postBatcher = new PostBatcher(transport, batchSize,
+               options.getLong("batchLingerMs", PostBatcher.DEFAULT_LINGER_MS) * 1000000,
+               options.getString("batchUri", null),
+               options.getInt("sigDigits", LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS));
+            GetPostThread.setPostBatcher(postBatcher);
+            StatisticsGatherer.configurePostBatcher(postBatcher);
+        }
+
+        String getCacheMode = options.getString("getCache", null);
+
+        if (getCacheMode != null) { // GETs are revalidated with ETags, or answered locally while fresh
+            if (asyncMode) {
+                throw new IllegalArgumentException("--getCache caches the users' blocking GETs, it can't be "
+                   + "combined with --async");
+            }
+            if (!getCacheMode.equals("revalidate") && !getCacheMode.equals("fresh")) {
+                throw new IllegalArgumentException("Unknown --getCache " + getCacheMode + ", use revalidate or fresh");
+            }
+            ConditionalGetCache getCache = new ConditionalGetCache(transport, getCacheMode.equals("fresh"),
+               options.getInt("sigDigits", LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS));
+            GetPostThread.setGetCache(getCache);
+            StatisticsGatherer.configureGetCache(getCache);
+        }
+        StatisticsGatherer.updateTransportName(describeTransport(transport, options));
+        return transport;
+    }
+
+    /** @return the transport's name for the report, with the batching and GET caching if they're on */
+    private static String describeTransport(HttpTransport transport, ClientOptions options) {
+
+        int batchSize = options.getInt("batchSize", 0);
+        String getCacheMode = options.getString("getCache", null);
+
+        return transport.getName() + (batchSize > 1 ? ", POSTs batched up to " + batchSize : "")
+           + ("revalidate".equals(getCacheMode) ? ", GETs revalidated with If-None-Match"
+              : "fresh".equals(getCacheMode) ? ", GETs answered locally within max-age" : "");
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
 
         /* cmd line args:
          * -max number of threads (default 50)
          * -number of iterations per thread (default to 100)
-         * -IP address of server
-         * -port used on server (default to 8080)
+         * -IP address of server, the Get and Post go to http://ip:port/testing/tests/
+         *  (default to the deployed API Gateway URIs)
+         * -port used on server
+         *
+         * options (--name=value, after or between the args above):
+         * --sigDigits: significant digits kept for latency statistics (default 3)
+         * --transport: 'jaxrs', 'instrumented' to send over raw HTTP/1.1 sockets and report where each
+         *              request's time went: DNS, connect, TLS, time to first byte, body read, or 'http2' to
+         *              multiplex the requests as streams over a few HTTP/2 connections (default jaxrs)
+         * --h2Connections: http2 transport, connections (one per client) the streams are spread over (default 1)
+         * --maxStreams: http2 transport, most concurrent streams per connection (default 100)
+         * --compareTransports: comma separated transports, e.g. jaxrs,http2, to run the plan once over each,
+         *                      reset the statistics in between, and print their results side by side
+         * --pooled: jaxrs transport, share one keep-alive client between all threads (default true)
+         * --poolSize: max idle kept-alive connections per server when pooled, busy ones aren't capped
+         *             (default 100); jaxrs reads it and --pooled once per JVM, at its first transport
+         * --batchSize: coalesce up to this many POSTs to the same URI into one request to its batch
+         *              endpoint, e.g. /tests/batch or the PostBatchHandler Lambda (default 0, off)
+         * --batchLingerMs: batching, longest a batch waits for more POSTs before it is sent (default 5)
+         * --batchUri: batching, URI to send every batch to (default the POST URI + /batch)
+         * --getCache: keep each GET URI's ETag and send GETs as conditional GETs, 'revalidate' to
+         *             revalidate every GET (a 304 counts as a success), or 'fresh' to answer GETs locally
+         *             while within the response's max-age; reports hit ratio and latency saved (default off)
+         * --setupProbes: new connections opened up front to the server of the plan's first GET, to measure
+         *                connect + TLS cost (default 0, off)
+         * --rate: open-loop mode, peak requests/second; each phase runs at its share of it (default 0, closed-loop)
+         * --ramp: open-loop mode, ramp each phase's rate from the previous phase's rate (default false)
+         * --threads: run simulated users on 'platform' or 'virtual' threads (default platform)
+         * --async: send through a non-blocking client from one task per phase instead of a thread per user
+         * --inFlight: async mode, max in-flight requests at peak, scaled per phase (default one per phase thread)
+         * --ioThreads: async mode, threads handling responses (default 4)
+         * --metricsPort: serve OpenMetrics (Prometheus) metrics at http://localhost:<port>/metrics (default off)
+         * --metricsFile: write the same metrics to this file every --metricsInterval seconds (default off, 5)
+         * --liveInterval: seconds between live window reports during the run, 0 for none (default 0)
+         * --liveReport: file to append live windows to, as CSV or JSON lines (.jsonl) (default console)
+         * --rawLog: file to log every request to as a fixed-width binary record (default none)
+         * --rawLogSegmentMb: size of each memory-mapped segment of the raw log (default 4)
+         * --startAt: worker mode, epoch millis at which to start the first phase, shared by all workers
+         * --results: worker mode, file to write the counters and histograms to for DistributedRun to merge
+         * --missedScheduleMs: open-loop mode, how late a request can be sent before it counts as missed (default 1)
+         * --scenario: properties file giving the phases and weighted request mix to run instead of the
+         *             4 default phases of Get/Post pairs (see ExecutionPlan); --rate is ignored with it
+         * --phaseDuration: default phases, how long each phase runs, e.g. 60s (default until iterations are done)
+         * --continuous: run time-bounded phases back to back on one pool of reused threads, with no barrier
+         *               between phases (closed-loop, every phase needs a duration)
+         * --rampUp: continuous mode, default phases, time to move to each phase's threads, e.g. 10s (default 0)
+         * --rampSteps: continuous mode, default phases, steps the ramp is made in (default 0, linear)
+         * --expectedInterval: time a closed-loop user is expected to take between requests, e.g. 20ms, used to
+         *                     report latencies corrected for coordinated omission next to the raw ones;
+         *                     'auto' takes the first phase's median latency, 'off' turns it off (default auto)
+         * --search: 'rate' or 'threads', search for the max throughput that meets the SLO by stepping the
+         *           open-loop rate (on maxThreads threads) or the closed-loop threads, instead of the phases
+         * --sloP99: search, highest p99 latency a step can have to meet the SLO, e.g. 200ms (default 500ms)
+         * --sloErrors: search, highest percent of failed requests a step can have to meet the SLO (default 1)
+         * --searchStart: search, load of the first step (default 10 requests/second, or 1 thread)
+         * --searchMax: search, load the search never goes past (default 100000 requests/second, or 1024 threads)
+         * --searchFactor: search, how much more load each step offers until the SLO is broken (default 2)
+         * --searchPrecision: search, percent apart the passing and failing loads are bisected to (default 5)
+         * --stepDuration: search, how long each step runs, e.g. 30s (default 10s)
          */
 
         int maxThreads;
@@ -253,33 +634,270 @@ class SimpleGetPostClient {
         System.out.println("Active thread count " + Thread.activeCount());
 
 
-        if (args.length == 0) { // if there are no command line inputs
+        ClientOptions options = ClientOptions.parse(args); // split args into inputs and --options
+        List<String> inputs = options.getPositionalArgs();
+
+        if (inputs.isEmpty()) { // if there are no command line inputs
 
             maxThreads = 100; // set the defaults
             numIterations = 100;
-            ipAddress = "localhost";
-            serverPort = "8080";
+            ipAddress = null; // the deployed API Gateway URIs
+            serverPort = null;
 
 
         } else { // bring in the command line inputs
 
-            maxThreads = Integer.parseInt(args[0]);
-            numIterations = Integer.parseInt(args[1]);
-            ipAddress = args[2];
-            serverPort = args[3];
+            maxThreads = Integer.parseInt(inputs.get(0));
+            numIterations = Integer.parseInt(inputs.get(1));
+            ipAddress = inputs.get(2);
+            serverPort = inputs.get(3);
+        }
+
+        StatisticsGatherer.configureLatencyPrecision(options.getInt("sigDigits",
+           LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS)); // set up the latency histograms
+
+        targetRate = options.getDouble("rate", 0);
+        rampRate = options.getBoolean("ramp", false);
+        missedScheduleTolerance = options.getLong("missedScheduleMs", 1) * 1000000;
+
+        if (targetRate > 0) {
+            StatisticsGatherer.updateLoadModel("open-loop, " + targetRate + " requests/second peak"
+               + (rampRate ? ", ramped" : ""));
+        }
+
+        asyncMode = options.getBoolean("async", false);
+        inFlightLimit = options.getInt("inFlight", 0);
+
+        if (asyncMode) {
+            AsyncGetPostPipeline.createClient(options.getInt("ioThreads", 4));
+            StatisticsGatherer.updateLoadModel("async event-loop, " + (inFlightLimit > 0
+               ? inFlightLimit + " requests in flight at peak" : "one request in flight per phase thread"));
+        }
+
+        executionEngine = new ExecutionEngine(options.getString("threads", ExecutionEngine.PLATFORM));
+        StatisticsGatherer.updateThreadMode(executionEngine.getMode());
+
+        List<String> transportNames = options.has("compareTransports") // run the plan once over each
+           ? Arrays.asList(options.getString("compareTransports", null).split(","))
+           : Collections.singletonList(options.getString("transport", "jaxrs"));
+
+        if (transportNames.size() > 1 && (asyncMode || options.has("search") || options.has("rawLog")
+                || options.has("results"))) {
+            throw new IllegalArgumentException("--compareTransports reports each run on its own, it can't be "
+               + "combined with --async, --search, --rawLog or --results");
         }
 
-        System.out.println("Testing " + maxThreads + " maximum threads " + numIterations + " iterations...");
+        HttpTransport transport = configureTransport(transportNames.get(0), options); // one client per run
+
+        phaseDuration = ExecutionPlan.parseDurationNanos(options.getString("phaseDuration", "0"));
+        phaseRampUp = ExecutionPlan.parseDurationNanos(options.getString("rampUp", "0"));
+        phaseRampSteps = options.getInt("rampSteps", 0);
+
+        ExecutionPlan plan;
+
+        if (options.has("scenario")) { // phases and request mix come from the scenario file
+
+            plan = ExecutionPlan.load(Paths.get(options.getString("scenario", null)));
+            System.out.println("Running scenario " + options.getString("scenario", null) + ": "
+               + plan.getPhases().size() + " phases, " + plan.getOperationSequence().length
+               + " requests per iteration...");
+
+            boolean openLoop = false;
+            for (PlannedPhase phase : plan.getPhases()) {
+                openLoop |= phase.isOpenLoop();
+            }
+            if (!asyncMode) {
+                StatisticsGatherer.updateLoadModel((openLoop ? "open-loop" : "closed-loop")
+                   + ", scenario " + options.getString("scenario", null) + (rampRate ? ", ramped" : ""));
+            }
+
+        } else {
+
+            plan = createDefaultPlan(maxThreads, numIterations, ipAddress, serverPort);
+            System.out.println("Testing " + maxThreads + " maximum threads " + numIterations + " iterations...");
+        }
         System.out.println(" ");
 
-        phaseNames = createPhaseNames(phaseNames); // create the list of phases
+        int setupProbes = options.getInt("setupProbes", 0);
+
+        if (setupProbes > 0) { // measure handshake cost on its own, against the server the plan sends to
+            ConnectionSetupProbe.probe(probeUri(plan), setupProbes);
+        }
+
+        boolean continuousMode = options.getBoolean("continuous", false);
+
+        if (continuousMode) { // phases hand their users on instead of waiting for each other
+
+            for (PlannedPhase phase : plan.getPhases()) {
+                if (phase.getDurationNanos() <= 0 || phase.isOpenLoop() || asyncMode) {
+                    throw new IllegalArgumentException("--continuous needs closed-loop phases that all have a "
+                       + "duration (--phaseDuration or phase.<id>.duration), phase " + phase.getName() + " doesn't");
+                }
+            }
+            StatisticsGatherer.updateLoadModel("closed-loop, continuous phases on reused threads");
+        }
+
+        CapacitySearch capacitySearch = null;
+
+        if (options.has("search")) { // the search runs its own steps instead of the plan's phases
+
+            String search = options.getString("search", null);
+            if (!search.equals("rate") && !search.equals("threads")) {
+                throw new IllegalArgumentException("Unknown --search " + search + ", use rate or threads");
+            }
+            if (asyncMode || continuousMode) {
+                throw new IllegalArgumentException("--search runs its own steps, it can't be combined with "
+                   + "--async or --continuous");
+            }
+            boolean byRate = search.equals("rate");
+
+            capacitySearch = new CapacitySearch(byRate, maxThreads,
+               ExecutionPlan.parseDurationNanos(options.getString("stepDuration", "10s")),
+               ExecutionPlan.parseDurationNanos(options.getString("sloP99", "500ms")),
+               options.getDouble("sloErrors", 1) / 100);
+
+            phaseNames = new ArrayList<>();
+            phaseNames.add(CapacitySearch.PHASE_NAME);
+            StatisticsGatherer.updateLoadModel("capacity search, " + (byRate
+               ? "open-loop rate on " + maxThreads + " threads" : "closed-loop threads"));
+
+        } else {
+            phaseNames = new ArrayList<>(plan.getPhaseNames());
+        }
+        StatisticsGatherer.configurePhases(phaseNames); // split the statistics by phase
+
+        String expectedInterval = options.getString("expectedInterval", "auto");
+
+        if (!expectedInterval.equals("off")) { // correct closed-loop latencies for coordinated omission
+
+            boolean[] closedLoopPhases = new boolean[phaseNames.size()];
+            for (int i = 0; i < closedLoopPhases.length; i++) { // async phases also wait for a free slot
+                closedLoopPhases[i] = capacitySearch != null ? options.getString("search", null).equals("threads")
+                   : asyncMode || !plan.getPhases().get(i).isOpenLoop();
+            }
+            StatisticsGatherer.configureCoordinatedOmissionCorrection(expectedInterval.equals("auto") ? 0
+               : ExecutionPlan.parseDurationNanos(expectedInterval), closedLoopPhases);
+        }
+
+        RawSampleLog rawSampleLog = null;
+
+        if (options.has("rawLog")) { // keep every sample on disk instead of only in the histograms
+            rawSampleLog = new RawSampleLog(Paths.get(options.getString("rawLog", null)),
+               options.getInt("rawLogSegmentMb", RawSampleLog.DEFAULT_SEGMENT_BYTES / 1048576) * 1048576,
+               phaseNames);
+            StatisticsGatherer.configureRawSampleLog(rawSampleLog);
+        }
+
+        if (options.has("startAt")) { // distributed worker: all workers start their phases together
+            long startDelay = options.getLong("startAt", 0) - System.currentTimeMillis();
+            System.out.println("Waiting " + startDelay + " ms for the synchronized start");
+            if (startDelay > 0) {
+                Thread.sleep(startDelay);
+            }
+        }
+
+        MetricsExporter metricsExporter = null;
+        Path metricsFile = options.has("metricsFile") ? Paths.get(options.getString("metricsFile", null)) : null;
+
+        if (options.has("metricsPort") || metricsFile != null) { // expose the counters to dashboards
+            metricsExporter = new MetricsExporter();
+            if (options.has("metricsPort")) {
+                metricsExporter.serve(options.getInt("metricsPort", 9464));
+            }
+            if (metricsFile != null) {
+                metricsExporter.writeEvery(metricsFile, options.getInt("metricsInterval", 5));
+            }
+        }
+
+        LiveReporter liveReporter = null;
+        int liveInterval = options.getInt("liveInterval", 0);
+
+        if (liveInterval > 0) { // report each window while the phases run
+            liveReporter = new LiveReporter(liveInterval, options.getString("liveReport", null));
+            liveReporter.start();
+        }
+
+        TransportComparison transportComparison = transportNames.size() > 1 ? new TransportComparison() : null;
+
+        for (int run = 0; run < transportNames.size(); run++) {
+
+            if (run > 0) { // the same plan again, over the next transport
+                transport.close();
+                StatisticsGatherer.updateTransportName(describeTransport(transport, options));
+                StatisticsGatherer.printStatistics(); // each run gets its full report
+                transportComparison.addRun(transportNames.get(run - 1));
+                StatisticsGatherer.reset();
+
+                transport = configureTransport(transportNames.get(run), options);
+                System.out.println("Comparing transports: running the plan again over " + transportNames.get(run));
+                System.out.println(" ");
+            }
 
-        /* Launch the threads in this phase based on inputs then kickoff
-         * await start and await finish */
-        launchPhaseThenAwaitThreadStartAndFinish(phaseNames, maxThreads,
-           numIterations,ipAddress, serverPort);
+            /* Launch the threads in this phase based on inputs then kickoff
+             * await start and await finish */
+            if (capacitySearch != null) {
+
+                boolean byRate = options.getString("search", null).equals("rate");
+                PlannedOperation[] operationSequence = plan.getOperationSequence();
+                long searchStartTime = System.nanoTime();
+
+                capacitySearch.run(options.getDouble("searchStart", byRate ? 10 : 1),
+                   options.getDouble("searchMax", byRate ? 100000 : 1024), options.getDouble("searchFactor", 2),
+                   options.getDouble("searchPrecision", 5) / 100,
+                   step -> launchPhaseThenAwaitThreadStartAndFinish(Collections.singletonList(step),
+                      operationSequence));
+
+                // every step restarted the phase's clock, the totals cover the whole search
+                StatisticsGatherer.updateAllThreadsStartTime(searchStartTime);
+                StatisticsGatherer.updatePhaseStartTime(CapacitySearch.PHASE_NAME, searchStartTime);
+                StatisticsGatherer.updateTotalWallTime(StatisticsGatherer.calcTotalWallTimeInSeconds());
+
+            } else if (continuousMode) {
+                runContinuousPhases(plan);
+            } else {
+                launchPhaseThenAwaitThreadStartAndFinish(plan);
+            }
+
+        }
 
-        StatisticsGatherer.printStatistics(); // threads are finished, print stats to console
+        if (liveReporter != null) {
+            liveReporter.stop();
+        }
+
+        if (rawSampleLog != null) {
+            StatisticsGatherer.configureRawSampleLog(null);
+            rawSampleLog.close(); // flush the samples to disk
+            System.out.println((rawSampleLog.hasFailed() ? "Raw samples, up to when the log stopped, written to "
+               : "Raw samples written to ") + options.getString("rawLog", null));
+        }
+
+        executionEngine.close(); // threads are finished, release the executor
+        AsyncGetPostPipeline.closeClient();
+        transport.close(); // and the connections
+        StatisticsGatherer.updateTransportName(describeTransport(transport, options)); // with what it counted
+
+        StatisticsGatherer.printStatistics(); // print stats to console
+
+        if (transportComparison != null) { // the runs side by side
+            transportComparison.addRun(transportNames.get(transportNames.size() - 1));
+            transportComparison.print();
+        }
+
+        if (capacitySearch != null) {
+            capacitySearch.printReport(); // the latency curve and the knee
+        }
+
+        if (metricsExporter != null) {
+            metricsExporter.stop(metricsFile); // the file ends with the final numbers
+        }
+
+        if (options.has("results")) { // distributed worker: leave the results for the merge step
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(options.getString("results", null))))) {
+                StatisticsGatherer.writeResults(out);
+            }
+            System.out.println("Results written to " + options.getString("results", null));
+        }
 
         System.exit(0);
 
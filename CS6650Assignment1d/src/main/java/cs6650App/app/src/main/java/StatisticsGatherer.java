@@ -1,11 +1,13 @@
 package cs6650App.app.src.main.java;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.CopyOnWriteArrayList;
-import javax.ws.rs.core.Response;
+import java.util.function.IntSupplier;
 
 
 /* Statistics Gatherer gets updated statistics on number of requests and latency
@@ -14,44 +16,219 @@ import javax.ws.rs.core.Response;
  */
 class StatisticsGatherer {
 
-    private static AtomicInteger threadRequests = new AtomicInteger();
-    private static AtomicInteger threadSuccesses = new AtomicInteger(0);
-    private static AtomicInteger threadFailures = new AtomicInteger(0);
+    // striped, padded counters: recording threads never contend on one cache line, and reading
+    // them (a metrics scrape, a live window) never blocks recording
+    private static RequestCounters requestCounters = new RequestCounters();
+    private static IntSupplier activeUsers = () -> 0; // users (or async tasks) running right now
     private static AtomicLong allThreadsStartTime = new AtomicLong(0L);
     private static AtomicLong allThreadsFinishTime = new AtomicLong(0L);
     private static float totalWallTime = 0;
-    private static CopyOnWriteArrayList<Float> latenciesList = new CopyOnWriteArrayList<>();
+    private static LatencyRecorder latencyRecorder =
+       new LatencyRecorder(LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS); // per-thread latency histograms
+    private static LatencyHistogram latencyHistogram; // merged histogram, built once all threads are done
+    private static LatencyRecorder correctedLatencyRecorder =
+       new LatencyRecorder(LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS); // corrected for coordinated omission
+    private static LatencyHistogram correctedLatencyHistogram; // merged like latencyHistogram
+    private static volatile long expectedIntervalNanos = 0; // between a closed-loop user's requests, 0 if unknown
+    private static boolean autoExpectedInterval = false; // take the interval from the first phase's median
+    private static boolean[] correctedPhases = new boolean[0]; // closed-loop phases, the ones corrected
+    private static LatencyRecorder connectionSetupRecorder =
+       new LatencyRecorder(LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS, 1); // new connection + handshake times
+    private static String transportName = "";
+    private static RequestTimings requestTimings; // per-stage timings of the instrumented transport, null if off
+    private static PostBatcher postBatcher; // batch counts and latencies, null if POSTs aren't batched
+    private static ConditionalGetCache getCache; // GET cache hits and latencies, null if GETs aren't cached
+    private static String loadModel = "closed-loop";
+    private static String threadMode = "";
+    private static List<String> phaseStartupStatistics = new ArrayList<>(); // one line per phase, main thread only
+    private static int significantDigits = LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS;
+    private static RequestBreakdown requestBreakdown = new RequestBreakdown(
+       Collections.singletonList("Run"), LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS); // per-phase/op/status
+    private static volatile int currentPhase = 0; // index of the running phase in the breakdown
+    private static RawSampleLog rawSampleLog; // every request as a binary record, null when off
+    private static volatile int runNumber = 0; // how many times the statistics were reset
 
     /*========================GETTERS & SETTERS ====================================*/
 
-    static void updateRequestStatistics() {
+    /** Records everything about one finished request: its latency, the request count,
+     * success or failure, and its (phase, operation, status class) breakdown
+     * @param operation RequestBreakdown.GET or RequestBreakdown.POST
+     * @param status HTTP status of the response, -1 if there was none
+     * @param latencyNanos latency of the request in nanoseconds
+     */
+    static void recordRequest(int operation, int status, long latencyNanos) {
+
+        int phaseIndex = currentPhase;
+
+        recordRequest(phaseIndex, operation, status, latencyNanos);
+
+        if (rawSampleLog != null) { // also keep the raw sample, for offline analysis
+            rawSampleLog.append(System.nanoTime() - latencyNanos, latencyNanos, phaseIndex, operation, status);
+        }
+    }
+
+    /** Records one finished request under a given phase, e.g. when replaying a raw sample log
+     * @param phaseIndex index of the phase the request was sent in
+     * @param operation RequestBreakdown.GET or RequestBreakdown.POST
+     * @param status HTTP status of the response, -1 if there was none
+     * @param latencyNanos latency of the request in nanoseconds
+     */
+    static void recordRequest(int phaseIndex, int operation, int status, long latencyNanos) {
+
+        updateLatenciesList(latencyNanos);
+        updateCorrectedLatencies(phaseIndex, latencyNanos);
+        updateResponseSuccessOrFailure(status); // counts the request too
+        requestBreakdown.record(phaseIndex, operation, status, latencyNanos);
+    }
+
+    /** Turns on the raw sample log: from now on every request is also appended to it
+     * @param log the log to write to, or null to turn it off
+     */
+    static void configureRawSampleLog(RawSampleLog log) {
+
+        rawSampleLog = log;
+    }
+
+    /** @return the request counters at this point, consistent with each other (requests are
+     * always successes + failures), e.g. to take the difference of two as a window
+     */
+    static RequestCounters.Snapshot snapshotCounters() {
+
+        return requestCounters.snapshot();
+    }
+
+    /** @return how many times the statistics were reset, e.g. to tell that a window spans a reset */
+    static int getRunNumber() {
 
-        threadRequests.getAndIncrement();
+        return runNumber;
     }
 
-    private static int getThreadRequests() {
+    static long getThreadRequests() {
 
-        return threadRequests.get();
+        return requestCounters.snapshot().getRequests();
     }
 
-    private static void updateSuccessStatistics() {
+    static long getThreadSuccesses() {
 
-        threadSuccesses.getAndIncrement();
+        return requestCounters.snapshot().getSuccesses();
     }
 
-    private static void updateFailStatistics() {
+    static long getThreadFailures() {
 
-        threadFailures.getAndIncrement();
+        return requestCounters.snapshot().getFailures();
     }
 
-    private static int getThreadSuccesses() {
+    static void updateMissedScheduleStatistics() {
 
-        return threadSuccesses.get();
+        requestCounters.recordMissedSchedule();
     }
 
-    private static int getThreadFailures() {
+    static long getMissedSchedules() {
+
+        return requestCounters.snapshot().getMissedSchedules();
+    }
+
+    /** @param users how many users (or async tasks) are running right now, read by the metrics export */
+    static void configureActiveUsersGauge(IntSupplier users) {
+
+        activeUsers = users;
+    }
+
+    static int getActiveUsers() {
+
+        return activeUsers.getAsInt();
+    }
+
+    static void updateLoadModel(String model) {
+
+        loadModel = model;
+    }
+
+    static void updateThreadMode(String mode) {
+
+        threadMode = mode;
+    }
+
+    /** Records how long it took to start a phase's threads and how much memory the
+     * client used once they were all running
+     * @param phase name of the phase
+     * @param threads number of threads started for the phase
+     * @param startNanos time from starting the first thread until all were started
+     * @param heapBytes heap in use with all the threads running
+     * @param residentBytes resident set size of the process, -1 if unknown
+     * @param platformThreads number of live platform threads
+     */
+    static void updatePhaseStartupStatistics(String phase, int threads, long startNanos,
+       long heapBytes, long residentBytes, int platformThreads) {
+
+        phaseStartupStatistics.add(String.format("%-15s %8d threads started in %9.3f ms (%7.2f us/thread),"
+              + " heap %7.1f MB, RSS %7s MB, platform threads %6d",
+           phase, threads, startNanos / 1e6, threads == 0 ? 0.0 : startNanos / 1e3 / threads,
+           heapBytes / 1048576.0, residentBytes < 0 ? "n/a" : String.format("%.1f", residentBytes / 1048576.0),
+           platformThreads));
+    }
+
+    /** Sets the phases the breakdown is split into. Must be called before any request is recorded.
+     * @param phaseNames names of the phases, in the order they run
+     */
+    static void configurePhases(List<String> phaseNames) {
 
-        return threadFailures.get();
+        requestBreakdown = new RequestBreakdown(phaseNames, significantDigits);
+        currentPhase = 0;
+    }
+
+    /** Marks a phase as launched: requests recorded from now on count towards it
+     * @param phase name of the phase
+     */
+    static void updateCurrentPhase(String phase) {
+
+        int phaseIndex = requestBreakdown.phaseIndex(phase);
+
+        if (autoExpectedInterval && expectedIntervalNanos == 0 && phaseIndex > 0) { // the first phase is over
+            expectedIntervalNanos = latencyRecorder.snapshot().getValueAtPercentile(.5);
+        }
+        currentPhase = phaseIndex;
+    }
+
+    /** Turns on the coordinated omission correction of closed-loop latencies. A closed-loop
+     * user can't send its next request until the last one is answered, so when the server
+     * stalls, the requests that would have been sent during the stall are never measured.
+     * The corrected latencies add them back (see LatencyHistogram.recordValueWithExpectedInterval),
+     * assuming a user sends a request every expected interval. Open-loop latencies are
+     * already measured from the schedule, so those phases are recorded as they are.
+     * Must be called after configurePhases.
+     * @param intervalNanos nanos expected between a user's requests, or 0 to use the
+     *                      median latency of the first phase, measured once it is over
+     * @param closedLoopPhases which phases (by index) are closed-loop and get corrected
+     */
+    static void configureCoordinatedOmissionCorrection(long intervalNanos, boolean[] closedLoopPhases) {
+
+        expectedIntervalNanos = intervalNanos;
+        autoExpectedInterval = intervalNanos == 0;
+        correctedPhases = closedLoopPhases.clone();
+    }
+
+    private static void updateCorrectedLatencies(int phaseIndex, long latencyNanos) {
+
+        boolean corrected = phaseIndex >= 0 && phaseIndex < correctedPhases.length && correctedPhases[phaseIndex];
+
+        correctedLatencyRecorder.recordWithExpectedInterval(latencyNanos, corrected ? expectedIntervalNanos : 0);
+    }
+
+    /** @param phase name of the phase
+     * @param time nanoTime when all of the phase's threads were started
+     */
+    static void updatePhaseStartTime(String phase, long time) {
+
+        requestBreakdown.updatePhaseStartTime(requestBreakdown.phaseIndex(phase), time);
+    }
+
+    /** @param phase name of the phase
+     * @param time nanoTime when all of the phase's threads were finished
+     */
+    static void updatePhaseFinishTime(String phase, long time) {
+
+        requestBreakdown.updatePhaseFinishTime(requestBreakdown.phaseIndex(phase), time);
     }
 
     static void updateAllThreadsStartTime(long time) {
@@ -74,58 +251,148 @@ class StatisticsGatherer {
         return allThreadsFinishTime.get();
     }
 
-    static void updateLatenciesList(float time) {
+    /** Sets how many significant digits the latency histograms keep. Must be called
+     * before any latency is recorded, since it replaces the recorder.
+     * @param significantDigits decimal precision of the latency statistics, 1 to 5
+     */
+    static void configureLatencyPrecision(int significantDigits) {
+
+        StatisticsGatherer.significantDigits = significantDigits;
+        requestBreakdown = new RequestBreakdown(requestBreakdown.getPhaseNames(), significantDigits);
+        latencyRecorder = new LatencyRecorder(significantDigits);
+        latencyHistogram = null;
+        correctedLatencyRecorder = new LatencyRecorder(significantDigits);
+        correctedLatencyHistogram = null;
+        connectionSetupRecorder = new LatencyRecorder(significantDigits, 1);
+    }
 
-        latenciesList.add(time);
+    /** Clears every count, time and latency recorded so far, so the same plan can be run
+     * again (e.g. over another transport) and reported on its own. What was configured is
+     * kept: the phases, the precision, the correction and the connection setup probes;
+     * the transport's timings and batcher are configured again with the next transport.
+     * Must only be called while no requests are being recorded.
+     */
+    static void reset() {
+
+        requestCounters = new RequestCounters();
+        runNumber++; // main thread only
+        allThreadsStartTime.set(0L);
+        allThreadsFinishTime.set(0L);
+        totalWallTime = 0;
+        requestBreakdown = new RequestBreakdown(requestBreakdown.getPhaseNames(), significantDigits);
+        currentPhase = 0;
+        latencyRecorder = new LatencyRecorder(significantDigits);
+        latencyHistogram = null;
+        correctedLatencyRecorder = new LatencyRecorder(significantDigits);
+        correctedLatencyHistogram = null;
+        if (autoExpectedInterval) { // measured again from the next run's first phase
+            expectedIntervalNanos = 0;
+        }
+        requestTimings = null;
+        postBatcher = null;
+        getCache = null;
+        phaseStartupStatistics.clear();
     }
 
-    private static CopyOnWriteArrayList<Float> getLatenciesList() {
+    static void updateLatenciesList(long latencyNanos) {
 
-        return latenciesList;
+        latencyRecorder.record(latencyNanos);
     }
 
-    static void updateTotalWallTime(float time) {
+    private static synchronized LatencyHistogram getLatencyHistogram() {
 
-        totalWallTime = time;
+        if (latencyHistogram == null) { // merge the per-thread histograms the first time they are read
+            latencyHistogram = latencyRecorder.snapshot();
+        }
+        return latencyHistogram;
     }
 
-    private static float getTotalWallTime() {
+    private static synchronized LatencyHistogram getCorrectedLatencyHistogram() {
 
-        return totalWallTime;
+        if (correctedLatencyHistogram == null) {
+            correctedLatencyHistogram = correctedLatencyRecorder.snapshot();
+        }
+        return correctedLatencyHistogram;
     }
 
-    static void updateResponseSuccessOrFailure(Response response) {
+    /** Merges the latencies recorded so far without blocking the recording threads.
+     * Used for reporting while the run is still going.
+     * @return a new histogram of every latency recorded so far
+     */
+    static LatencyHistogram snapshotLatencyHistogram() {
 
-        if (response.getStatus() == 200) {
+        return latencyRecorder.snapshot();
+    }
 
-            updateSuccessStatistics();
+    /** Hands every (phase, operation, status class) histogram recorded so far to the visitor
+     * @param visitor receives each key's names and histogram
+     */
+    static void visitRequestBreakdown(RequestBreakdown.KeyVisitor visitor) {
 
-        } else {
+        requestBreakdown.forEachKey(visitor);
+    }
 
-            updateFailStatistics();
-        }
+    /** @return name of the phase that requests are currently counted towards */
+    static String getCurrentPhaseName() {
+
+        return requestBreakdown.getPhaseNames().get(Math.max(currentPhase, 0));
     }
-    /*=================================================================================*/
 
-    private static synchronized void sortLatenciesList() {
+    static void updateConnectionSetupLatencies(long setupNanos) {
+
+        connectionSetupRecorder.record(setupNanos);
+    }
 
-        getLatenciesList().sort(Comparator.naturalOrder());
+    static void updateTransportName(String name) {
 
+        transportName = name;
     }
-    /*=================================== CALCULATIONS ==================================*/
 
-    /** Sum the list of latency measurements for use in calculating the mean latency
-     * @param latenciesList list of latency measurements
-     * @return the sum of all the latency measurements
+    /** @param timings the stage timings to report, e.g. InstrumentedTransport's, or null for none */
+    static void configureRequestTimings(RequestTimings timings) {
+
+        requestTimings = timings;
+    }
+
+    /** @param batcher the batcher whose batches to report, or null for none */
+    static void configurePostBatcher(PostBatcher batcher) {
+
+        postBatcher = batcher;
+    }
+
+    /** @param cache the GET cache whose hits to report, or null for none */
+    static void configureGetCache(ConditionalGetCache cache) {
+
+        getCache = cache;
+    }
+
+    static void updateTotalWallTime(float time) {
+
+        totalWallTime = time;
+    }
+
+    static float getTotalWallTime() {
+
+        return totalWallTime;
+    }
+
+    /** Counts a request, and whether it was a success (a 200, or a 304 to a conditional GET) or a failure
+     * @param status HTTP status of the response, -1 if there was none
      */
-    private static float sumLatenciesList(CopyOnWriteArrayList<Float> latenciesList) {
+    static void updateResponseSuccessOrFailure(int status) {
 
-        float sum = 0f;
+        requestCounters.recordResponse(status == 200 || status == 304);
+    }
 
-        for (float latency : latenciesList) {
-            sum += latency;
-        }
-        return sum;
+    /*=================================== CALCULATIONS ==================================*/
+
+    /** Converts a latency in nanoseconds to seconds, the unit used in the report
+     * @param nanos latency in nanoseconds
+     * @return latency in seconds
+     */
+    private static float nanosToSeconds(double nanos) {
+
+        return (float) (nanos / 1000000000);
     }
 
     /** Calculates the mean latency of the simulation's Get and Post requests
@@ -133,8 +400,7 @@ class StatisticsGatherer {
      */
     private static float calcMeanLatency() {
 
-        int size = getLatenciesList().size();
-        return sumLatenciesList(getLatenciesList()) / size;
+        return nanosToSeconds(getLatencyHistogram().getMean());
     }
 
     /** Calculate the total wall time and convert to seconds
@@ -153,20 +419,7 @@ class StatisticsGatherer {
      */
     private static float calcMedianLatency() {
 
-        sortLatenciesList(); // sort the list so the median can be calculated
-
-        int latencyListSize = getLatenciesList().size();
-
-        if (latencyListSize % 2 == 0) {  // if the size of the list is even
-
-            return getLatenciesList().get(latencyListSize / 2); // the median is at size/2 index
-
-        } else { // otherwise the median is the element in the middle of the two equal halves
-
-            return getLatenciesList().get((latencyListSize - 1) / 2)
-               + (getLatenciesList().get(latencyListSize / 2)) / 2;
-        }
-
+        return calcPercentile(.5); // the median is the 50th percentile
     }
 
     /** Calculates the percentile of latencies (e.g., 'X% of the latency data points are < this number')
@@ -174,11 +427,7 @@ class StatisticsGatherer {
      * @return the latency data point that is the point which X% are less than that data point*/
     private static float calcPercentile(double percentile) {
 
-        sortLatenciesList(); //sort the list in ascending order
-
-        int index = (int) (percentile * getLatenciesList().size()); // the index of the number is pct * list size
-
-        return getLatenciesList().get(index); // return the number at that index
+        return nanosToSeconds(getLatencyHistogram().getValueAtPercentile(percentile)); // read from the histogram
     }
 
 
@@ -188,19 +437,146 @@ class StatisticsGatherer {
      */
     static void printStatistics() throws InterruptedException {
 
+        RequestCounters.Snapshot counters = requestCounters.snapshot();
+
         System.out.println("==============================================================");
-        System.out.println("Total number of requests sent: " + getThreadRequests());
-        System.out.println("Total number of successful responses: " + getThreadSuccesses());
-        System.out.println("Total number of unsuccessful requests: " + getThreadFailures());
+        System.out.println("Total number of requests sent: " + counters.getRequests());
+        System.out.println("Total number of successful responses: " + counters.getSuccesses());
+        System.out.println("Total number of unsuccessful requests: " + counters.getFailures());
+        System.out.println("Load model: " + loadModel);
+        if (loadModel.startsWith("open-loop")) {
+            System.out.println("Requests sent later than scheduled (missed schedule): "
+               + counters.getMissedSchedules());
+        }
         System.out.println("--------------------------------------------------------------");
         System.out.println("Test wall time: " + getTotalWallTime() + " seconds");
-        System.out.println("Overall throughput across all phases: " + getThreadRequests() / getTotalWallTime());
-        System.out.println("Total number of latency data points: " + getLatenciesList().size());
+        System.out.println("Overall throughput across all phases: " + counters.getRequests() / getTotalWallTime());
+        System.out.println("Total number of latency data points: " + getLatencyHistogram().getTotalCount());
         System.out.println("--------------------------------------------------------------");
         System.out.println("Median Latency: " + calcMedianLatency());
         System.out.println("Mean Latency: " + calcMeanLatency());
         System.out.println("99th Percentile (99% of latency entries are < this number: " + calcPercentile(.99) +")");
         System.out.println("95th Percentile (95% of latency entries are < this number: " + calcPercentile(.95) + ")");
+        System.out.println("Max Latency: " + nanosToSeconds(getLatencyHistogram().getMaxValue()));
+        System.out.println("(latencies accurate to " + getLatencyHistogram().getSignificantDigits()
+           + " significant digits)");
+        System.out.println("--------------------------------------------------------------");
+        printCorrectedPercentiles();
+        System.out.println("--------------------------------------------------------------");
+        requestBreakdown.printTable();
+        System.out.println("--------------------------------------------------------------");
+        requestBreakdown.printPhaseSummary();
+        System.out.println("--------------------------------------------------------------");
+        printRunnerStatistics();
+
+    }
+
+    /** Prints the raw latency percentiles next to the ones corrected for coordinated omission */
+    private static void printCorrectedPercentiles() {
+
+        LatencyHistogram raw = getLatencyHistogram();
+        LatencyHistogram corrected = getCorrectedLatencyHistogram();
+
+        if (corrected.getTotalCount() == raw.getTotalCount()) { // nothing was added back
+            System.out.println("Coordinated omission correction: " + (expectedIntervalNanos > 0
+               ? "no stalls longer than the expected interval of " + nanosToSeconds(expectedIntervalNanos) + " s"
+               : "off (open-loop latencies are measured from the schedule, or no expected interval is known)"));
+            return;
+        }
+
+        System.out.println("Coordinated omission correction: expected interval " + nanosToSeconds(expectedIntervalNanos)
+           + " s, " + (corrected.getTotalCount() - raw.getTotalCount()) + " requests the users couldn't send added back");
+        System.out.printf("%-12s %14s %14s%n", "Percentile", "Raw s", "Corrected s");
+
+        double[] percentiles = {.50, .90, .95, .99, .999, .9999};
+        String[] labels = {"50%", "90%", "95%", "99%", "99.9%", "99.99%"};
+        for (int i = 0; i < percentiles.length; i++) {
+            System.out.printf("%-12s %14.6f %14.6f%n", labels[i],
+               nanosToSeconds(raw.getValueAtPercentile(percentiles[i])),
+               nanosToSeconds(corrected.getValueAtPercentile(percentiles[i])));
+        }
+        System.out.printf("%-12s %14.6f %14.6f%n", "Mean", nanosToSeconds(raw.getMean()),
+           nanosToSeconds(corrected.getMean()));
+        System.out.printf("%-12s %14.6f %14.6f%n", "Max", nanosToSeconds(raw.getMaxValue()),
+           nanosToSeconds(corrected.getMaxValue()));
+    }
+
+    /** Prints the thread mode with each phase's thread start time and memory footprint,
+     * the transport used for the requests and, if it was measured, what it costs to open
+     * a new connection (connect plus TLS handshake)
+     */
+    private static void printRunnerStatistics() {
+
+        System.out.println("Thread mode: " + threadMode);
+        for (String phaseStartup : phaseStartupStatistics) {
+            System.out.println("  " + phaseStartup);
+        }
+        System.out.println("Transport: " + transportName);
+        if (requestTimings != null) {
+            requestTimings.print();
+        }
+        if (postBatcher != null) {
+            postBatcher.print();
+        }
+        if (getCache != null) {
+            getCache.print();
+        }
+
+        LatencyHistogram setupHistogram = connectionSetupRecorder.snapshot();
+
+        if (setupHistogram.getTotalCount() > 0) {
+            System.out.println("Connection setup (connect + TLS handshake), " + setupHistogram.getTotalCount()
+               + " probes: median " + nanosToSeconds(setupHistogram.getValueAtPercentile(.5))
+               + ", mean " + nanosToSeconds(setupHistogram.getMean())
+               + ", max " + nanosToSeconds(setupHistogram.getMaxValue()));
+        }
+    }
+
+    /*=================================== RESULT FILES ================================*/
+
+    /** Writes this run's counters, wall time and histograms, so that the results of
+     * several runs (e.g. the workers of a distributed run) can be merged into one report
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    static void writeResults(DataOutputStream out) throws IOException {
+
+        requestBreakdown.writeTo(out);
+        RequestCounters.Snapshot counters = requestCounters.snapshot();
+        out.writeLong(counters.getRequests());
+        out.writeLong(counters.getSuccesses());
+        out.writeLong(counters.getFailures());
+        out.writeLong(counters.getMissedSchedules());
+        out.writeFloat(getTotalWallTime());
+        latencyRecorder.snapshot().writeTo(out);
+        out.writeLong(expectedIntervalNanos);
+        correctedLatencyRecorder.snapshot().writeTo(out);
+    }
+
+    /** Adds the results written by writeResults to this JVM's statistics. Counters and
+     * histograms are added, and the wall time becomes the longest of the merged runs,
+     * since they all start at the same time. The first results merged set the phases.
+     * @param in stream to read from
+     * @throws IOException if reading fails
+     */
+    static void mergeResults(DataInputStream in) throws IOException {
+
+        RequestBreakdown breakdown = RequestBreakdown.readFrom(in, significantDigits);
+
+        if (getThreadRequests() == 0) { // nothing recorded or merged yet: take the phases from the results
+            requestBreakdown = breakdown;
+        } else {
+            requestBreakdown.add(breakdown);
+        }
 
+        in.readLong(); // the requests, always the successes + the failures
+        long successes = in.readLong();
+        requestCounters.add(successes, in.readLong(), in.readLong());
+        updateTotalWallTime(Math.max(getTotalWallTime(), in.readFloat()));
+        latencyRecorder.add(LatencyHistogram.readFrom(in));
+        expectedIntervalNanos = Math.max(expectedIntervalNanos, in.readLong()); // workers may have measured their own
+        correctedLatencyRecorder.add(LatencyHistogram.readFrom(in));
+        latencyHistogram = null; // merge again the next time it is read
+        correctedLatencyHistogram = null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package cs6650App.app.src.main.java;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The headline numbers of the same plan run over several transports (--compareTransports),
+ * e.g. HTTP/1.1 keep-alive and HTTP/2, printed side by side once every run is over. Each
+ * run's full statistics are printed as it finishes.
+ */
+class TransportComparison {
+
+    /** One transport's run */
+    private static class Run {
+
+        final String transport;
+        final long requests;
+        final long failures;
+        final float wallTime;
+        final LatencyHistogram latencies;
+
+        Run(String transport, long requests, long failures, float wallTime, LatencyHistogram latencies) {
+
+            this.transport = transport;
+            this.requests = requests;
+            this.failures = failures;
+            this.wallTime = wallTime;
+            this.latencies = latencies;
+        }
+    }
+
+    private final List<Run> runs = new ArrayList<>();
+
+    /** Takes the statistics of the run that just finished, before they are reset for the next one
+     * @param transport name of the transport the run went over
+     */
+    void addRun(String transport) {
+
+        runs.add(new Run(transport, StatisticsGatherer.getThreadRequests(), StatisticsGatherer.getThreadFailures(),
+           StatisticsGatherer.getTotalWallTime(), StatisticsGatherer.snapshotLatencyHistogram()));
+    }
+
+    /** Prints a row per transport */
+    void print() {
+
+        System.out.println("==============================================================");
+        System.out.println("Transport comparison (latencies in ms):");
+
+        String rowFormat = "  %-14s %10s %10s %10s %12s %10s %10s %10s %10s%n";
+        System.out.printf(rowFormat, "Transport", "Requests", "Failures", "Wall s", "Throughput", "Mean", "p50",
+           "p99", "Max");
+
+        for (Run run : runs) {
+            System.out.printf(rowFormat, run.transport, run.requests, run.failures,
+               String.format("%.3f", run.wallTime),
+               String.format("%.1f", run.wallTime > 0 ? run.requests / run.wallTime : 0.0),
+               String.format("%.3f", run.latencies.getMean() / 1e6),
+               String.format("%.3f", run.latencies.getValueAtPercentile(.5) / 1e6),
+               String.format("%.3f", run.latencies.getValueAtPercentile(.99) / 1e6),
+               String.format("%.3f", run.latencies.getMaxValue() / 1e6));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package cs6650App.app.src.main.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulated users that live for the whole run instead of for one phase. The
+ * controller only sets how many users should be active; users above that number
+ * finish the request they are sending and then park, and parked users are woken
+ * when the number goes back up. New threads are only started when the run needs
+ * more users than it has ever had, so phases hand their threads on to the next
+ * one and there is no barrier between phases waiting on the slowest thread.
+ */
+class UserPool {
+
+    private final PlannedOperation[] operationSequence;
+    private final ExecutionEngine executionEngine;
+    private final List<User> users = new ArrayList<>(); // only touched by the controller thread
+
+    private volatile int activeUsers;
+    private volatile boolean stopped;
+
+    /** @param operationSequence the plan's operations, each user sends them in order, over and over
+     * @param executionEngine runs the users' threads (platform or virtual)
+     */
+    UserPool(PlannedOperation[] operationSequence, ExecutionEngine executionEngine) {
+
+        this.operationSequence = operationSequence;
+        this.executionEngine = executionEngine;
+    }
+
+    /** Sets how many users send requests, starting threads only if there were never this many.
+     * Must only be called from one (controller) thread.
+     * @param count users that should be active from now on
+     */
+    void setActiveUsers(int count) {
+
+        while (users.size() < count) { // more than ever before: start new users
+            User user = new User(users.size());
+            users.add(user);
+            executionEngine.execute(user);
+        }
+
+        int previous = activeUsers;
+        activeUsers = count;
+
+        for (int i = previous; i < count; i++) { // wake the users that were parked
+            users.get(i).wake();
+        }
+    }
+
+    int getActiveUsers() {
+
+        return activeUsers;
+    }
+
+    /** @return how many threads the pool has started over the run */
+    int getStartedUsers() {
+
+        return users.size();
+    }
+
+    /** Retires every user and waits for their last requests to come back
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void stop() throws InterruptedException {
+
+        stopped = true;
+        activeUsers = 0;
+
+        for (User user : users) {
+            user.wake();
+        }
+        for (User user : users) {
+            user.finished.await();
+        }
+    }
+
+    /** One simulated user, active while its index is below the pool's active count */
+    private class User implements Runnable {
+
+        private final int index;
+        private volatile Thread thread;
+        private final CountDownLatch finished = new CountDownLatch(1); // counted down when the user exits
+
+        User(int index) {
+
+            this.index = index;
+        }
+
+        void wake() {
+
+            Thread userThread = thread;
+            if (userThread != null) { // not running yet means it will see the new count when it does
+                LockSupport.unpark(userThread);
+            }
+        }
+
+        @Override
+        public void run() {
+
+            thread = Thread.currentThread();
+            try {
+                int next = 0;
+
+                while (!stopped) {
+
+                    if (index >= activeUsers) { // retired for now, wait to be woken
+                        LockSupport.park(this);
+                        continue;
+                    }
+
+                    PlannedOperation operation = operationSequence[next];
+                    next = (next + 1) % operationSequence.length;
+
+                    GetPostThread.execute(operation, System.nanoTime());
+
+                    long thinkTime = operation.getThinkTimeNanos();
+                    if (thinkTime > 0) { // pause like a user would before the next request
+                        LockSupport.parkNanos(thinkTime);
+                    }
+                }
+            } finally { // even if a request blew up, so stopping the pool isn't waited on for ever
+                finished.countDown();
+            }
+        }
+    }
+}
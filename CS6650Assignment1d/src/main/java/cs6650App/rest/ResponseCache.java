@@ -0,0 +1,154 @@
+package cs6650App.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+
+/** A bounded in-memory cache of GET response bodies, for resources whose GETs are
+ * idempotent. A cached body is served without computing it again until its time to
+ * live is up, and the least recently used body is evicted once the cache is full.
+ *
+ * Every response carries the body's ETag and a Cache-Control max-age of the time the
+ * entry has left, so clients can keep a copy and revalidate it with If-None-Match, which
+ * is answered with a 304 Not Modified and no body while the ETag still matches.
+ */
+public class ResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final int DEFAULT_TTL_SECONDS = 60;
+
+    /** A cached body and its validator */
+    private static class Entry {
+
+        final String body;
+        final EntityTag etag;
+        final long expiresAt; // nanoTime
+
+        Entry(String body, EntityTag etag, long expiresAt) {
+
+            this.body = body;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries; // in least recently used order, guarded by itself
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder(); // not cached, or expired
+    private final LongAdder notModified = new LongAdder(); // answered with a 304
+
+    /** @param maxEntries most bodies kept, the least recently used is evicted past it
+     * @param ttlSeconds how long a body is served before it is computed again, 0 to compute
+     *                   it every time (conditional requests still get a 304 if it didn't change)
+     */
+    public ResponseCache(int maxEntries, int ttlSeconds) {
+
+        this.ttlNanos = ttlSeconds * 1000000000L;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) { // access order: LRU first
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Answers a GET from the cache, computing the body if it isn't cached or has expired
+     * @param key what identifies the response, e.g. the resource's path and query
+     * @param ifNoneMatch the request's If-None-Match header, null if it has none
+     * @param loader computes the body, called outside the cache's lock
+     * @return a 304 if the client's copy matches the body's ETag, otherwise a 200 with the body
+     */
+    public Response get(String key, String ifNoneMatch, Supplier<String> loader) {
+
+        long now = System.nanoTime();
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.increment();
+        } else {
+            misses.increment();
+            String body = loader.get();
+            entry = new Entry(body, entityTag(body), now + ttlNanos);
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge((int) Math.max(0, (entry.expiresAt - now) / 1000000000L));
+
+        if (matches(ifNoneMatch, entry.etag)) {
+            notModified.increment();
+            return Response.notModified(entry.etag).cacheControl(cacheControl).build();
+        }
+        return Response.ok(entry.body).tag(entry.etag).cacheControl(cacheControl).build();
+    }
+
+    /** @return a strong ETag for the body: the start of its SHA-256 */
+    private static EntityTag entityTag(String body) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            StringBuilder tag = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                tag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return new EntityTag(tag.toString());
+
+        } catch (NoSuchAlgorithmException e) { // every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Compares an If-None-Match header with an ETag the weak way, as If-None-Match is meant to be
+     * @param ifNoneMatch the header: *, or a comma separated list of ETags, null if there is none
+     * @return true if the client's copy matches
+     */
+    static boolean matches(String ifNoneMatch, EntityTag etag) {
+
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String quoted = "\"" + etag.getValue() + "\"";
+
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getHits() {
+
+        return hits.sum();
+    }
+
+    public long getMisses() {
+
+        return misses.sum();
+    }
+
+    public long getNotModified() {
+
+        return notModified.sum();
+    }
+}
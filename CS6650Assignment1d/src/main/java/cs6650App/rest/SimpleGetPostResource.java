@@ -1,26 +1,174 @@
 package cs6650App.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 @Path("/tests")
 public class SimpleGetPostResource {
 
+    private final ResponseCache getCache; // the Get endpoint's responses, with their ETags
+
+    private static final int STREAM_BUFFER_BYTES = 8192;
+    private static final int STREAM_BUFFER_POOL_SIZE = 64;
+
+    // read buffers shared by every request, so streaming a body of any size allocates nothing once
+    // the pool is warm. A pool rather than a buffer per thread: with a virtual thread per request
+    // (EmbeddedServer --workers=virtual) a per-thread buffer would be a new one for every request
+    private static final BlockingQueue<byte[]> STREAM_BUFFERS = new ArrayBlockingQueue<>(STREAM_BUFFER_POOL_SIZE);
+
+    public SimpleGetPostResource() {
+
+        this(new ResponseCache(ResponseCache.DEFAULT_MAX_ENTRIES, ResponseCache.DEFAULT_TTL_SECONDS));
+    }
+
+    /** @param getCache cache the Get endpoint is answered from */
+    public SimpleGetPostResource(ResponseCache getCache) {
+
+        this.getCache = getCache;
+    }
+
+    /** Answers "alive" from the cache, or a 304 if the client's copy (If-None-Match) is current */
     @GET
     @Path("/test")
     @Produces(MediaType.TEXT_PLAIN)
-    public String getAlive() {
-        return "alive";
+    public Response getAlive(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+
+        return getCache.get("/tests/test", ifNoneMatch, () -> "alive");
     }
 
     @POST
-    @Consumes(MediaType.TEXT_PLAIN)
+    @Consumes({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON}) // the client posts its text as JSON
     @Produces(MediaType.TEXT_PLAIN)
     public String postText(String content) {
 
         return(String.valueOf(content.length()));
     }
 
+    /** Batched version of postText: takes a JSON array of payloads, e.g. the bodies of
+     * several POSTs the client coalesced into one request, and returns a JSON array of
+     * their lengths, each the length postText would have returned for that payload posted
+     * on its own (the payload's text as posted, quotes and all).
+     */
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public String postBatch(String content) {
+
+        List<String> payloads = splitJsonArray(content);
+        StringBuilder lengths = new StringBuilder(payloads.size() * 4 + 2).append('[');
+
+        for (int i = 0; i < payloads.size(); i++) {
+            if (i > 0) {
+                lengths.append(',');
+            }
+            lengths.append(payloads.get(i).length());
+        }
+        return lengths.append(']').toString();
+    }
+
+    /** Splits a JSON array into the text of its elements, without parsing the elements
+     * themselves. Commas and brackets inside nested values or strings (single or double
+     * quoted, as the client's bodies are) don't split.
+     * @param array text of a JSON array
+     * @return the text of each element, trimmed
+     * @throws BadRequestException if the text isn't an array or its brackets or quotes don't match
+     */
+    static List<String> splitJsonArray(String array) {
+
+        String text = array.trim();
+        if (text.length() < 2 || text.charAt(0) != '[' || text.charAt(text.length() - 1) != ']') {
+            throw new BadRequestException("A batch must be a JSON array of payloads");
+        }
+
+        List<String> elements = new ArrayList<>();
+        int depth = 0; // of nested arrays and objects
+        char quote = 0; // the quote of the string we're in, 0 outside strings
+        int elementStart = 1;
+
+        for (int i = 1; i < text.length() - 1; i++) {
+
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++; // the escaped char can't end the string
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if ((c == ']' || c == '}') && --depth < 0) {
+                throw new BadRequestException("Unbalanced brackets in batch");
+            } else if (c == ',' && depth == 0) {
+                elements.add(text.substring(elementStart, i).trim());
+                elementStart = i + 1;
+            }
+        }
+        if (quote != 0 || depth != 0) {
+            throw new BadRequestException("Unterminated string or brackets in batch");
+        }
+
+        String last = text.substring(elementStart, text.length() - 1).trim();
+        if (!last.isEmpty() || !elements.isEmpty()) { // [] is an empty batch
+            elements.add(last);
+        }
+        return elements;
+    }
+
+    /** Streaming version of postText: returns the same length (in UTF-16 chars, like
+     * String.length()) of a UTF-8 body, but counts it straight off the stream through a
+     * fixed-size buffer instead of reading the whole body into a String first, so memory
+     * stays the same for any size of body.
+     */
+    @POST
+    @Path("/stream")
+    @Consumes({MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON, MediaType.APPLICATION_OCTET_STREAM})
+    @Produces(MediaType.TEXT_PLAIN)
+    public String postStream(InputStream content) throws IOException {
 
+        byte[] buffer = STREAM_BUFFERS.poll();
+        if (buffer == null) { // the pool is cold, or more bodies are streaming than it holds
+            buffer = new byte[STREAM_BUFFER_BYTES];
+        }
+        try {
+            return String.valueOf(countUtf16Chars(content, buffer));
+        } finally {
+            STREAM_BUFFERS.offer(buffer); // dropped if the pool is full
+        }
+    }
 
+    /** Counts the chars a UTF-8 stream would decode to, without decoding it
+     * @param in UTF-8 bytes
+     * @param buffer buffer to read through, any size
+     * @return number of UTF-16 chars, i.e. the length of the String the bytes decode to
+     * @throws IOException if reading fails
+     */
+    static long countUtf16Chars(InputStream in, byte[] buffer) throws IOException {
+
+        long chars = 0;
+        int read;
+
+        while ((read = in.read(buffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                int b = buffer[i];
+                if ((b & 0xC0) != 0x80) { // every byte but a continuation byte starts a character
+                    chars++;
+                }
+                if ((b & 0xF8) == 0xF0) { // 4-byte sequences are outside the BMP: a surrogate pair
+                    chars++;
+                }
+            }
+        }
+        return chars;
+    }
 }
@@ -0,0 +1,24 @@
+package SimpleGetPost;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Batched version of PostHandler: takes an array of events, e.g. [{"alive": "..."}, ...],
+ * and answers an array of their alive lengths, in order. One invocation does the work
+ * of as many PostHandler invocations as there are events, so a client that coalesces
+ * its POSTs pays for fewer invocations (and fewer API Gateway requests).
+ */
+public class PostBatchHandler implements RequestHandler<List<Request>, List<Integer>> {
+
+    public List<Integer> handleRequest(List<Request> requests, Context context) {
+
+        List<Integer> lengths = new ArrayList<>(requests.size());
+
+        for (Request request : requests) {
+            lengths.add(request.alive.length());
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,51 @@
+package SimpleGetPost;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/** Streaming version of PostHandler: answers {"echo": length of alive} like PostHandler,
+ * but counts the alive value straight off the event stream through a fixed-size buffer
+ * instead of having the runtime bind the whole event to a Request first. PostHandler
+ * stays as the String-based handler to compare against.
+ *
+ * Like GetStreamHandler, it primes itself while the class initializes.
+ */
+public class PostStreamHandler implements RequestStreamHandler {
+
+    private static final int BUFFER_BYTES = 8192;
+
+    static {
+        prime();
+    }
+
+    // a Lambda container runs one invocation at a time, so one buffer is reused by all of them
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+
+        long length = new StreamingJson(input, buffer).countAliveLength();
+
+        if (length < 0) {
+            throw new IllegalArgumentException("Event has no \"alive\" string");
+        }
+
+        StreamingJson.writeEcho(output, String.valueOf(length));
+    }
+
+    /** Runs a canned event through the handler so its classes are loaded and initialized */
+    private static void prime() {
+
+        try {
+            new PostStreamHandler().handleRequest(new ByteArrayInputStream(
+               "{\"alive\":\"prime\"}".getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(), null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Priming PostStreamHandler failed", e);
+        }
+    }
+}
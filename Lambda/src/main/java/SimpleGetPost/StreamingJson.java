@@ -0,0 +1,265 @@
+package SimpleGetPost;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/** Just enough JSON for the handlers' {"alive": "..."} events and {"echo": "..."}
+ * responses, read straight off the invocation's input stream through a fixed-size
+ * buffer and written straight to its output stream. Events of any size are read in
+ * constant memory, and none of it needs a databinding library or reflection, which
+ * is most of what a POJO handler's cold start spends its time loading.
+ */
+class StreamingJson {
+
+    private static final byte[] ALIVE_KEY = {'a', 'l', 'i', 'v', 'e'};
+    private static final byte[] ECHO_NULL = "{\"echo\":null}".getBytes(StandardCharsets.UTF_8);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    /** @param in the event's JSON
+     * @param buffer buffer to read through, any size, can be reused between events
+     */
+    StreamingJson(InputStream in, byte[] buffer) {
+
+        this.in = in;
+        this.buffer = buffer;
+    }
+
+    /** Finds the first "alive" key and counts the chars of its string value, as
+     * String.length() would, without building the String
+     * @return length of the alive value, or -1 if there is no alive string
+     * @throws IOException if reading fails or the JSON ends early
+     */
+    long countAliveLength() throws IOException {
+
+        return findAliveValue() ? countStringChars() : -1;
+    }
+
+    /** Finds the first "alive" key and reads its string value
+     * @return the alive value, or null if there is no alive string
+     * @throws IOException if reading fails or the JSON ends early
+     */
+    String readAlive() throws IOException {
+
+        return findAliveValue() ? readString() : null;
+    }
+
+    /** Writes {"echo": value} the way the runtime serializes a Response
+     * @param out stream to write to
+     * @param echo the value, null is written as null
+     * @throws IOException if writing fails
+     */
+    static void writeEcho(OutputStream out, String echo) throws IOException {
+
+        if (echo == null) {
+            out.write(ECHO_NULL);
+            return;
+        }
+
+        StringBuilder json = new StringBuilder(echo.length() + 12).append("{\"echo\":\"");
+
+        for (int i = 0; i < echo.length(); i++) {
+            char c = echo.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) { // other control characters must be escaped
+                        json.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        out.write(json.append("\"}").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Reads up to the opening quote of the first "alive" key's string value
+     * @return true if there is one, false if the JSON ends without it or its value isn't a string
+     */
+    private boolean findAliveValue() throws IOException {
+
+        int b;
+
+        while ((b = read()) >= 0) {
+
+            if (b != '"') {
+                continue; // structure, numbers, literals: nothing to look at
+            }
+
+            boolean isAliveKey = matchAndSkipString();
+
+            b = skipWhitespace();
+            if (b != ':') { // a value, not a key: keep looking
+                continue;
+            }
+
+            b = skipWhitespace();
+            if (isAliveKey) {
+                return b == '"';
+            }
+            if (b == '"') { // skip the value so its contents can't look like a key
+                matchAndSkipString();
+            }
+        }
+        return false;
+    }
+
+    /** Reads the rest of a string whose opening quote was just read
+     * @return true if the string is exactly alive
+     */
+    private boolean matchAndSkipString() throws IOException {
+
+        int matched = 0;
+        boolean matches = true;
+        int b;
+
+        while ((b = readOrFail()) != '"') {
+
+            if (b == '\\') { // an escape never appears in "alive"
+                readOrFail();
+                matches = false;
+                continue;
+            }
+            if (matches && matched < ALIVE_KEY.length && b == ALIVE_KEY[matched]) {
+                matched++;
+            } else {
+                matches = false;
+            }
+        }
+        return matches && matched == ALIVE_KEY.length;
+    }
+
+    /** Counts the chars of a string whose opening quote was just read, up to its closing quote */
+    private long countStringChars() throws IOException {
+
+        long chars = 0;
+        int b;
+
+        while ((b = readOrFail()) != '"') {
+
+            if (b == '\\') { // an escape, \\uXXXX included, is one char
+                if (readOrFail() == 'u') {
+                    for (int i = 0; i < 4; i++) {
+                        readOrFail();
+                    }
+                }
+                chars++;
+            } else if ((b & 0xC0) != 0x80) { // every byte but a UTF-8 continuation byte starts a char
+                chars += (b & 0xF8) == 0xF0 ? 2 : 1; // 4-byte sequences become a surrogate pair
+            }
+        }
+        return chars;
+    }
+
+    /** Reads a string whose opening quote was just read, up to its closing quote. Runs of
+     * plain bytes are decoded as UTF-8 in one go, escapes one at a time.
+     */
+    private String readString() throws IOException {
+
+        StringBuilder value = new StringBuilder();
+        byte[] run = new byte[64]; // plain bytes since the last escape
+        int runLength = 0;
+        int b;
+
+        while ((b = readOrFail()) != '"') {
+
+            if (b != '\\') {
+                if (runLength == run.length) {
+                    byte[] larger = new byte[run.length * 2];
+                    System.arraycopy(run, 0, larger, 0, runLength);
+                    run = larger;
+                }
+                run[runLength++] = (byte) b;
+                continue;
+            }
+
+            value.append(new String(run, 0, runLength, StandardCharsets.UTF_8));
+            runLength = 0;
+
+            int escaped = readOrFail();
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(readOrFail(), 16);
+                        if (digit < 0) {
+                            throw new IOException("Invalid \\u escape in JSON");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    value.append((char) code);
+                    break;
+                default: // \" \\ and \/ stand for themselves
+                    value.append((char) escaped);
+            }
+        }
+        return value.append(new String(run, 0, runLength, StandardCharsets.UTF_8)).toString();
+    }
+
+    private int skipWhitespace() throws IOException {
+
+        int b;
+        do {
+            b = read();
+        } while (b == ' ' || b == '\t' || b == '\n' || b == '\r');
+        return b;
+    }
+
+    private int readOrFail() throws IOException {
+
+        int b = read();
+        if (b < 0) {
+            throw new IOException("Unexpected end of JSON");
+        }
+        return b;
+    }
+
+    /** @return the next byte, 0-255, or -1 at the end of the input */
+    private int read() throws IOException {
+
+        if (position == limit) {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+}
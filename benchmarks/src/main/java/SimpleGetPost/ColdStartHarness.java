@@ -0,0 +1,206 @@
+package SimpleGetPost;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Measures the cold start and warm latency of the POJO handlers (GetHandler, PostHandler)
+ * against the stream handlers (GetStreamHandler, PostStreamHandler).
+ *
+ * Every cold start is a fresh JVM that loads one handler the way the Lambda runtime
+ * would: the POJO handlers through Jackson databinding of Request/Response, the stream
+ * handlers on the raw event bytes. For each handler it reports the time from starting
+ * the JVM to the first response, the handler's init (class loading, static init and
+ * construction), the first invocation, and the latency of warm invocations after it.
+ *
+ *   java -cp target/benchmarks.jar SimpleGetPost.ColdStartHarness
+ *        [--coldStarts=10] [--invocations=10000] [--jvmArgs="-XX:TieredStopAtLevel=1 ..."]
+ *        [--childClasspath=../Lambda/target/lambda-get-post-1.0-SNAPSHOT-stream.jar]
+ *
+ * --jvmArgs is how a CDS archive is tried out, e.g. -XX:SharedArchiveFile=handlers.jsa
+ * after a run with -XX:ArchiveClassesAtExit=handlers.jsa.
+ */
+public class ColdStartHarness {
+
+    private static final String[] HANDLERS = {"GetHandler", "PostHandler", "GetStreamHandler", "PostStreamHandler"};
+    private static final byte[] EVENT = "{\"alive\":\"alive\"}".getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+
+        if (args.length > 0 && args[0].equals("--child")) {
+            runChild(args[1], Integer.parseInt(args[2]));
+            return;
+        }
+
+        int coldStarts = 10;
+        int invocations = 10000;
+        String jvmArgs = "";
+        String childClasspath = System.getProperty("java.class.path");
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--coldStarts=")) {
+                coldStarts = Integer.parseInt(value);
+            } else if (arg.startsWith("--invocations=")) {
+                invocations = Integer.parseInt(value);
+            } else if (arg.startsWith("--jvmArgs=")) {
+                jvmArgs = value;
+            } else if (arg.startsWith("--childClasspath=")) { // handler classes from here take precedence
+                childClasspath = value + File.pathSeparator + childClasspath;
+            }
+        }
+
+        String rowFormat = "%-18s %12s %12s %12s %14s %12s %12s%n";
+        System.out.printf(rowFormat, "Handler", "Ready ms", "Ready max", "Init ms", "1st invoke us",
+           "Warm p50 us", "Warm p99 us");
+
+        for (String handler : HANDLERS) {
+
+            long[] ready = new long[coldStarts];
+            long[] init = new long[coldStarts];
+            long[] first = new long[coldStarts];
+            long[] warmP50 = new long[coldStarts];
+            long[] warmP99 = new long[coldStarts];
+
+            for (int run = 0; run < coldStarts; run++) {
+                long[] result = runColdStart(handler, invocations, jvmArgs, childClasspath);
+                ready[run] = result[0];
+                init[run] = result[1];
+                first[run] = result[2];
+                warmP50[run] = result[3];
+                warmP99[run] = result[4];
+            }
+
+            System.out.printf(rowFormat, handler, millis(median(ready)), millis(max(ready)), millis(median(init)),
+               micros(median(first)), micros(median(warmP50)), micros(median(warmP99)));
+        }
+    }
+
+    /** Starts a JVM that loads and invokes one handler
+     * @return nanos from starting the JVM to its first response, then the child's init,
+     *         first invocation, and warm p50 and p99, all in nanos
+     */
+    private static long[] runColdStart(String handler, int invocations, String jvmArgs, String classpath)
+            throws IOException, InterruptedException {
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String jvmArg : jvmArgs.trim().split("\\s+")) {
+            if (!jvmArg.isEmpty()) {
+                command.add(jvmArg);
+            }
+        }
+        command.addAll(Arrays.asList("-cp", classpath, ColdStartHarness.class.getName(),
+           "--child", handler, String.valueOf(invocations)));
+
+        long startTime = System.nanoTime();
+        Process child = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        long readyTime = 0;
+        long[] result = null;
+
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.equals("READY")) { // the first response is out
+                    readyTime = System.nanoTime();
+                } else if (line.startsWith("RESULT ")) {
+                    String[] fields = line.split(" ");
+                    result = new long[] {readyTime - startTime, Long.parseLong(fields[1]),
+                       Long.parseLong(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4])};
+                } else {
+                    System.out.println(handler + ": " + line);
+                }
+            }
+        }
+
+        if (child.waitFor() != 0 || result == null) {
+            throw new IllegalStateException(handler + " cold start failed");
+        }
+        return result;
+    }
+
+    /** The child JVM: loads the handler, invokes it once cold, then many times warm */
+    private static void runChild(String handlerName, int invocations) throws Exception {
+
+        long initStart = System.nanoTime();
+
+        Object handler = Class.forName(ColdStartHarness.class.getPackage().getName() + "." + handlerName)
+           .getDeclaredConstructor().newInstance();
+        ObjectMapper objectMapper = handler instanceof RequestHandler ? new ObjectMapper() : null;
+
+        long initTime = System.nanoTime() - initStart;
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        long firstStart = System.nanoTime();
+        invoke(handler, objectMapper, response);
+        long firstTime = System.nanoTime() - firstStart;
+
+        System.out.println("READY");
+        System.out.flush();
+
+        long[] warm = new long[invocations];
+        for (int i = 0; i < invocations; i++) {
+            response.reset();
+            long start = System.nanoTime();
+            invoke(handler, objectMapper, response);
+            warm[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(warm);
+
+        System.out.println("RESULT " + initTime + " " + firstTime + " " + percentile(warm, .50)
+           + " " + percentile(warm, .99));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void invoke(Object handler, ObjectMapper objectMapper, ByteArrayOutputStream response)
+            throws IOException {
+
+        if (handler instanceof RequestStreamHandler) {
+            ((RequestStreamHandler) handler).handleRequest(new ByteArrayInputStream(EVENT), response, null);
+        } else { // what the runtime does around a POJO handler
+            Request request = objectMapper.readValue(EVENT, Request.class);
+            objectMapper.writeValue(response, ((RequestHandler<Request, Response>) handler).handleRequest(request, null));
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long median(long[] values) {
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return percentile(sorted, .50);
+    }
+
+    private static long max(long[] values) {
+
+        return Arrays.stream(values).max().orElse(0);
+    }
+
+    private static String millis(long nanos) {
+
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private static String micros(long nanos) {
+
+        return String.format("%.2f", nanos / 1e3);
+    }
+}
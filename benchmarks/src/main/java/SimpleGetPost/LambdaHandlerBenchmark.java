@@ -0,0 +1,81 @@
+package SimpleGetPost;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost of GetHandler/PostHandler.handleRequest on their own, with the
+ * Request/Response POJO (de)serialization the Lambda runtime does around them,
+ * and of the streaming PostStreamHandler working on the raw event bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LambdaHandlerBenchmark {
+
+    private static final String REQUEST_JSON = "{\"alive\":\"alive\"}";
+
+    private final GetHandler getHandler = new GetHandler();
+    private final PostHandler postHandler = new PostHandler();
+    private final PostStreamHandler postStreamHandler = new PostStreamHandler();
+    private final byte[] requestBytes = REQUEST_JSON.getBytes(StandardCharsets.UTF_8);
+    private final ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Request request;
+
+    @Setup
+    public void setUp() {
+
+        request = new Request("alive");
+    }
+
+    @Benchmark
+    public Response getHandler() {
+
+        return getHandler.handleRequest(request, null);
+    }
+
+    @Benchmark
+    public Response postHandler() {
+
+        return postHandler.handleRequest(request, null);
+    }
+
+    @Benchmark
+    public String getHandlerWithJson() throws Exception {
+
+        Request parsed = objectMapper.readValue(REQUEST_JSON, Request.class);
+        return objectMapper.writeValueAsString(getHandler.handleRequest(parsed, null));
+    }
+
+    @Benchmark
+    public String postHandlerWithJson() throws Exception {
+
+        Request parsed = objectMapper.readValue(REQUEST_JSON, Request.class);
+        return objectMapper.writeValueAsString(postHandler.handleRequest(parsed, null));
+    }
+
+    @Benchmark
+    public int postStreamHandler() throws Exception {
+
+        responseBytes.reset();
+        postStreamHandler.handleRequest(new ByteArrayInputStream(requestBytes), responseBytes, null);
+        return responseBytes.size();
+    }
+}
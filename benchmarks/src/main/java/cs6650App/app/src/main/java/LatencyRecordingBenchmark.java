@@ -0,0 +1,78 @@
+package cs6650App.app.src.main.java;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost per request of the statistics recording path (StatisticsGatherer.updateLatenciesList
+ * and the full recordRequest) with 1 to 256 threads recording at the same time. Anything
+ * slow here is added to every latency the client measures.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyRecordingBenchmark {
+
+    private static long latency() {
+
+        return 1000000 + ThreadLocalRandom.current().nextLong(100000000); // 1 to 101 ms
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void updateLatenciesList_1thread() {
+
+        StatisticsGatherer.updateLatenciesList(latency());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void updateLatenciesList_16threads() {
+
+        StatisticsGatherer.updateLatenciesList(latency());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void updateLatenciesList_64threads() {
+
+        StatisticsGatherer.updateLatenciesList(latency());
+    }
+
+    @Benchmark
+    @Threads(256)
+    public void updateLatenciesList_256threads() {
+
+        StatisticsGatherer.updateLatenciesList(latency());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordRequest_1thread() {
+
+        StatisticsGatherer.recordRequest(RequestBreakdown.GET, 200, latency());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void recordRequest_64threads() {
+
+        StatisticsGatherer.recordRequest(RequestBreakdown.GET, 200, latency());
+    }
+
+    @Benchmark
+    @Threads(256)
+    public void recordRequest_256threads() {
+
+        StatisticsGatherer.recordRequest(RequestBreakdown.GET, 200, latency());
+    }
+}
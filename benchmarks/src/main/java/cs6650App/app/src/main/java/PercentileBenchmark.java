@@ -0,0 +1,63 @@
+package cs6650App.app.src.main.java;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost of the end-of-run percentile calculations over 10^6 to 10^8 recorded samples */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercentileBenchmark {
+
+    @Param({"1000000", "10000000", "100000000"})
+    public int samples;
+
+    private LatencyRecorder recorder;
+    private LatencyHistogram histogram;
+
+    @Setup
+    public void setUp() {
+
+        recorder = new LatencyRecorder(LatencyHistogram.DEFAULT_SIGNIFICANT_DIGITS);
+        Random random = new Random(42);
+
+        for (int i = 0; i < samples; i++) { // log-normal latencies around 5 ms
+            recorder.record((long) (Math.exp(random.nextGaussian()) * 5000000));
+        }
+        histogram = recorder.snapshot();
+    }
+
+    @Benchmark
+    public LatencyHistogram mergeRecorders() {
+
+        return recorder.snapshot();
+    }
+
+    @Benchmark
+    public long percentile99() {
+
+        return histogram.getValueAtPercentile(.99);
+    }
+
+    @Benchmark
+    public long reportPercentiles() { // everything printStatistics reads from the histogram
+
+        return histogram.getValueAtPercentile(.5) + histogram.getValueAtPercentile(.95)
+           + histogram.getValueAtPercentile(.99) + histogram.getValueAtPercentile(.999)
+           + histogram.getMaxValue() + (long) histogram.getMean();
+    }
+}
@@ -0,0 +1,122 @@
+package cs6650App.app.src.main.java;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost per request of counting it (a request and its success) with 1, 64 and 512 threads
+ * counting at the same time: the padded cells of RequestCounters, against LongAdders and
+ * the shared AtomicIntegers every thread used to increment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestCountersBenchmark {
+
+    private final RequestCounters requestCounters = new RequestCounters();
+    private final LongAdder adderRequests = new LongAdder();
+    private final LongAdder adderSuccesses = new LongAdder();
+    private final AtomicInteger atomicRequests = new AtomicInteger();
+    private final AtomicInteger atomicSuccesses = new AtomicInteger();
+
+    private void countWithRequestCounters() {
+
+        requestCounters.recordResponse(true);
+    }
+
+    private void countWithLongAdders() {
+
+        adderRequests.increment();
+        adderSuccesses.increment();
+    }
+
+    private void countWithAtomics() {
+
+        atomicRequests.getAndIncrement();
+        atomicSuccesses.getAndIncrement();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void requestCounters_1thread() {
+
+        countWithRequestCounters();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void requestCounters_64threads() {
+
+        countWithRequestCounters();
+    }
+
+    @Benchmark
+    @Threads(512)
+    public void requestCounters_512threads() {
+
+        countWithRequestCounters();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void longAdders_1thread() {
+
+        countWithLongAdders();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void longAdders_64threads() {
+
+        countWithLongAdders();
+    }
+
+    @Benchmark
+    @Threads(512)
+    public void longAdders_512threads() {
+
+        countWithLongAdders();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void atomicIntegers_1thread() {
+
+        countWithAtomics();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void atomicIntegers_64threads() {
+
+        countWithAtomics();
+    }
+
+    @Benchmark
+    @Threads(512)
+    public void atomicIntegers_512threads() {
+
+        countWithAtomics();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public RequestCounters.Snapshot snapshotWhileCounting_64threads() { // what a live window or scrape costs
+
+        countWithRequestCounters();
+        return requestCounters.snapshot();
+    }
+}
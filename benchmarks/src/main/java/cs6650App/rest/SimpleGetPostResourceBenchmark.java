@@ -0,0 +1,89 @@
+package cs6650App.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost of the SimpleGetPostResource methods themselves, without a JAX-RS container.
+ * postTextDecoded and postStream start from the body's bytes, like the container does,
+ * to compare reading the body into a String with streaming it. getAlive is answered from
+ * the response cache, getAliveNotModified is a revalidation the cache answers with a 304.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleGetPostResourceBenchmark {
+
+    private final SimpleGetPostResource resource = new SimpleGetPostResource();
+    private String aliveETag; // what a client revalidating its copy sends as If-None-Match
+
+    /** Text posted to postText, at a few sizes */
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        @Param({"16", "1024", "65536", "1048576"})
+        public int payloadLength;
+
+        private String text;
+        private byte[] bytes;
+
+        @Setup
+        public void setUp() {
+
+            text = "a".repeat(payloadLength);
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+
+        aliveETag = resource.getAlive(null).getEntityTag().toString();
+    }
+
+    @Benchmark
+    public Response getAlive() {
+
+        return resource.getAlive(null);
+    }
+
+    @Benchmark
+    public Response getAliveNotModified() {
+
+        return resource.getAlive(aliveETag);
+    }
+
+    @Benchmark
+    public String postText(Payload payload) {
+
+        return resource.postText(payload.text);
+    }
+
+    @Benchmark
+    public String postTextDecoded(Payload payload) {
+
+        return resource.postText(new String(payload.bytes, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String postStream(Payload payload) throws IOException {
+
+        return resource.postStream(new ByteArrayInputStream(payload.bytes));
+    }
+}
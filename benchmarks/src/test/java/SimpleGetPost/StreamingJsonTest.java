@@ -0,0 +1,88 @@
+package SimpleGetPost;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class StreamingJsonTest {
+
+    @Test
+    void escapesAreOneCharEach() throws IOException {
+
+        // a " b \ c / newline tab e-acute: 9 chars
+        assertAlive("a\"b\\c/\n\té", "{\"alive\":\"a\\\"b\\\\c\\/\\n\\t\\u00e9\"}");
+    }
+
+    @Test
+    void anEscapedSurrogatePairIsTwoChars() throws IOException {
+
+        assertAlive("x😀y", "{\"alive\":\"x\\ud83d\\ude00y\"}");
+    }
+
+    @Test
+    void aFourByteSequenceIsASurrogatePair() throws IOException {
+
+        assertAlive("😀 café 中 𝄞", "{\"alive\":\"😀 café 中 𝄞\"}");
+    }
+
+    @Test
+    void onlyTheAliveKeyCounts() throws IOException {
+
+        assertAlive("ab", "{\"name\":\"alive\",\"alive\":\"ab\"}"); // alive as a value isn't the key
+        assertAlive("ab", "{\"aliveness\":\"xyz\",\"aliv\":\"xyz\",\"alive\":\"ab\"}");
+        assertAlive("ab", "{\"n\":[1,true,null],\"o\":{\"k\":\"\\\"alive\\\":\"}, \"alive\" : \"ab\"}");
+        assertAlive("first", "{\"alive\":\"first\",\"alive\":\"second\"}");
+        assertAlive("", "{\"alive\":\"\"}");
+    }
+
+    @Test
+    void noAliveStringIsMinusOne() throws IOException {
+
+        for (String json : new String[] {"{}", "", "{\"echo\":\"alive\"}", "{\"alive\":5}", "{\"alive\":null}",
+                "{\"al\\u0069ve\":\"escaped keys aren't matched\"}"}) {
+            assertEquals(-1, streamingJson(json, 16).countAliveLength(), json);
+            assertNull(streamingJson(json, 16).readAlive(), json);
+        }
+    }
+
+    @Test
+    void jsonThatEndsInsideAStringFails() {
+
+        assertThrows(IOException.class, () -> streamingJson("{\"alive\":\"ab", 16).countAliveLength());
+        assertThrows(IOException.class, () -> streamingJson("{\"alive\":\"ab\\u00", 16).countAliveLength());
+        assertThrows(IOException.class, () -> streamingJson("{\"ali", 16).countAliveLength());
+    }
+
+    @Test
+    void anEchoReadsBackAsTheSameString() throws IOException {
+
+        String echo = "q\"b\\s\n\r\t\u0001é😀";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingJson.writeEcho(out, echo);
+
+        String json = out.toString("UTF-8").replace("\"echo\"", "\"alive\"");
+        assertAlive(echo, json);
+    }
+
+    /** Checks countAliveLength against the length of the value, and readAlive against the
+     * value, through buffers small enough to split escapes and UTF-8 sequences across reads
+     */
+    private static void assertAlive(String expected, String json) throws IOException {
+
+        for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+            assertEquals(expected.length(), streamingJson(json, bufferSize).countAliveLength(), json);
+            assertEquals(expected, streamingJson(json, bufferSize).readAlive(), json);
+        }
+    }
+
+    private static StreamingJson streamingJson(String json, int bufferSize) {
+
+        return new StreamingJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new byte[bufferSize]);
+    }
+}
@@ -0,0 +1,83 @@
+package cs6650App.app.src.main.java;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.junit.jupiter.api.Test;
+
+class ArrivalScheduleTest {
+
+    @Test
+    void everySlotIsClaimedExactlyOnce() throws InterruptedException {
+
+        int totalRequests = 100000;
+        ArrivalSchedule schedule = new ArrivalSchedule(0, totalRequests, 1000, 1000);
+        AtomicLongArray claims = new AtomicLongArray(totalRequests);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                long slot;
+                while ((slot = schedule.claimSlot()) >= 0) {
+                    claims.incrementAndGet((int) slot);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int slot = 0; slot < totalRequests; slot++) {
+            assertEquals(1, claims.get(slot), "slot " + slot);
+        }
+        assertEquals(-1, schedule.claimSlot()); // and it stays used up
+    }
+
+    @Test
+    void aConstantRateSpacesSlotsEvenly() {
+
+        long start = 5000000000L;
+        ArrivalSchedule schedule = new ArrivalSchedule(start, 1000, 1000, 1000); // one every ms
+
+        for (long slot = 0; slot < 1000; slot++) {
+            assertEquals(start + slot * 1000000, schedule.intendedStartTime(slot), 1.0);
+        }
+    }
+
+    @Test
+    void aRampSendsTheRequestsAtTheRisingRate() {
+
+        int totalRequests = 2000;
+        ArrivalSchedule schedule = new ArrivalSchedule(0, totalRequests, 1000, 3000); // over 1 s
+
+        // requests sent by t are 1000 t + 1000 t^2 per second, so the last one is due at about 1 s
+        assertEquals(1e9, schedule.intendedStartTime(totalRequests), 1e3);
+        assertEquals(0.5e9, schedule.intendedStartTime(750), 1e3); // 500 + 250 sent by 0.5 s
+
+        long previous = -1;
+        long previousGap = Long.MAX_VALUE;
+        for (long slot = 0; slot < totalRequests; slot += 100) {
+            long time = schedule.intendedStartTime(slot);
+            assertTrue(time > previous, "slot " + slot + " isn't after the one before it");
+            if (previous >= 0) {
+                assertTrue(time - previous < previousGap, "the gaps don't shrink at slot " + slot);
+                previousGap = time - previous;
+            }
+            previous = time;
+        }
+    }
+
+    @Test
+    void ratesMustBePositive() {
+
+        assertThrows(IllegalArgumentException.class, () -> new ArrivalSchedule(0, 10, 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new ArrivalSchedule(0, 10, 100, -1));
+    }
+}
@@ -0,0 +1,199 @@
+package cs6650App.app.src.main.java;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    private static final long HOUR = 3600L * 1000000000L;
+    private static final double[] PERCENTILES = {0.0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1.0};
+
+    /** Every value below the first bucket's sub-bucket count has a slot of its own */
+    @Test
+    void valuesInTheFirstBucketAreExact() {
+
+        for (long value = 0; value < 2048; value++) {
+            LatencyHistogram histogram = new LatencyHistogram(1, HOUR, 3);
+            histogram.recordValue(value);
+            histogram.recordValue(HOUR); // so the median isn't capped by the max
+            assertEquals(value, histogram.getValueAtPercentile(0.5), "value " + value);
+        }
+    }
+
+    /** Past the first bucket every power of two halves the resolution, but a value is
+     * still reported back within its significant digits, and never below itself
+     */
+    @Test
+    void valuesAroundBucketBoundariesKeepTheirPrecision() {
+
+        for (int significantDigits = 1; significantDigits <= 5; significantDigits++) {
+            for (int shift = 2; shift < 40; shift++) {
+                for (long delta = -2; delta <= 2; delta++) {
+
+                    long value = (1L << shift) + delta;
+                    LatencyHistogram histogram = new LatencyHistogram(1, HOUR, significantDigits);
+                    histogram.recordValue(value);
+                    histogram.recordValue(HOUR);
+
+                    long reported = histogram.getValueAtPercentile(0.5);
+                    assertTrue(reported >= value && reported - value <= value * Math.pow(10, -significantDigits),
+                       "value " + value + " reported as " + reported + " with " + significantDigits + " digits");
+                }
+            }
+        }
+    }
+
+    @Test
+    void percentilesMatchTheSortedValuesWithinThePrecision() {
+
+        Random random = new Random(42);
+
+        for (int significantDigits = 2; significantDigits <= 4; significantDigits++) {
+
+            LatencyHistogram histogram = new LatencyHistogram(1, HOUR, significantDigits);
+            long[] values = new long[10000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = 1 + (long) Math.exp(random.nextDouble() * Math.log(1e9)); // 1 ns to 1 s, log-uniform
+                histogram.recordValue(values[i]);
+            }
+            Arrays.sort(values);
+
+            for (double percentile : PERCENTILES) {
+                long exact = values[(int) Math.max(1, Math.ceil(percentile * values.length)) - 1];
+                long reported = histogram.getValueAtPercentile(percentile);
+                assertTrue(reported >= exact && reported - exact <= exact * Math.pow(10, -significantDigits),
+                   "p" + percentile + ": exact " + exact + ", reported " + reported);
+            }
+            assertEquals(values[values.length - 1], histogram.getMaxValue());
+            assertEquals(Arrays.stream(values).average().getAsDouble(), histogram.getMean(), 1e-6);
+        }
+    }
+
+    @Test
+    void valuesOutOfRangeAreClamped() {
+
+        LatencyHistogram histogram = new LatencyHistogram(1, HOUR, 3);
+        histogram.recordValue(-5);
+        histogram.recordValue(2 * HOUR);
+
+        assertEquals(0, histogram.getValueAtPercentile(0.5));
+        assertEquals(HOUR, histogram.getMaxValue());
+        assertEquals(HOUR / 2.0, histogram.getMean(), 1e-6);
+    }
+
+    @Test
+    void anEmptyHistogramReportsZero() {
+
+        LatencyHistogram histogram = new LatencyHistogram(3);
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(0.99));
+        assertEquals(0.0, histogram.getMean());
+    }
+
+    @Test
+    void expectedIntervalRecordsTheRequestsThatWereNeverSent() {
+
+        LatencyHistogram histogram = new LatencyHistogram(1, HOUR, 3);
+        histogram.recordValueWithExpectedInterval(1000, 300); // 1000, then 700 and 400 missed
+
+        assertEquals(3, histogram.getTotalCount());
+        assertEquals(700.0, histogram.getMean(), 1e-9);
+        assertEquals(400, histogram.getValueAtPercentile(0.0));
+        assertEquals(700, histogram.getValueAtPercentile(0.5));
+        assertEquals(1000, histogram.getValueAtPercentile(1.0));
+    }
+
+    @Test
+    void expectedIntervalRecordsTheValueAloneWhenItIsShorter() {
+
+        LatencyHistogram histogram = new LatencyHistogram(1, HOUR, 3);
+        histogram.recordValueWithExpectedInterval(1000, 1000); // nothing missed until 2 * interval
+        histogram.recordValueWithExpectedInterval(500, 1000);
+        histogram.recordValueWithExpectedInterval(1000, 0); // no correction
+
+        assertEquals(3, histogram.getTotalCount());
+        assertEquals(1000, histogram.getMaxValue());
+    }
+
+    @Test
+    void intervalSinceHoldsOnlyTheLaterValues() {
+
+        LatencyHistogram histogram = new LatencyHistogram(1, HOUR, 3);
+        for (long value = 1; value <= 100; value++) {
+            histogram.recordValue(value * 1000);
+        }
+        LatencyHistogram earlier = snapshotOf(histogram);
+
+        for (long value = 1; value <= 50; value++) {
+            histogram.recordValue(value);
+        }
+        LatencyHistogram interval = snapshotOf(histogram).intervalSince(earlier);
+
+        assertEquals(50, interval.getTotalCount());
+        assertEquals(25.5, interval.getMean(), 1e-9);
+        assertEquals(25, interval.getValueAtPercentile(0.5));
+        assertEquals(50, interval.getValueAtPercentile(1.0));
+        assertEquals(50, interval.getMaxValue());
+
+        LatencyHistogram nothingNew = snapshotOf(histogram).intervalSince(snapshotOf(histogram));
+        assertEquals(0, nothingNew.getTotalCount());
+        assertEquals(0, nothingNew.getValueAtPercentile(0.99));
+    }
+
+    @Test
+    void histogramsWithDifferentLayoutsDontMix() {
+
+        LatencyHistogram threeDigits = new LatencyHistogram(3);
+        LatencyHistogram twoDigits = new LatencyHistogram(2);
+
+        assertThrows(IllegalArgumentException.class, () -> threeDigits.intervalSince(twoDigits));
+        assertThrows(IllegalArgumentException.class, () -> threeDigits.add(twoDigits));
+    }
+
+    @Test
+    void aHistogramReadsBackAsItWasWritten() throws IOException {
+
+        LatencyHistogram histogram = new LatencyHistogram(3);
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            histogram.recordValue(1000 + (long) (random.nextDouble() * 50000000));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.writeTo(new DataOutputStream(bytes));
+        LatencyHistogram read = LatencyHistogram.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(histogram.getTotalCount(), read.getTotalCount());
+        assertEquals(histogram.getMaxValue(), read.getMaxValue());
+        assertEquals(histogram.getMean(), read.getMean());
+        assertEquals(histogram.getSignificantDigits(), read.getSignificantDigits());
+        for (double percentile : PERCENTILES) {
+            assertEquals(histogram.getValueAtPercentile(percentile), read.getValueAtPercentile(percentile));
+        }
+
+        long[] bounds = {1000000, 10000000, 25000000, 50000000};
+        assertArrayEquals(histogram.getCumulativeCounts(bounds), read.getCumulativeCounts(bounds));
+
+        read.add(histogram); // and it still merges with the histogram it came from
+        assertEquals(2 * histogram.getTotalCount(), read.getTotalCount());
+    }
+
+    private static LatencyHistogram snapshotOf(LatencyHistogram histogram) {
+
+        LatencyHistogram snapshot = histogram.copyLayout();
+        snapshot.add(histogram);
+        return snapshot;
+    }
+}
@@ -0,0 +1,73 @@
+package cs6650App.app.src.main.java;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LatencyRecorderTest {
+
+    @Test
+    void aSnapshotMergesEveryThreadsValues() throws InterruptedException {
+
+        LatencyRecorder recorder = new LatencyRecorder(3, 4);
+        int threadCount = 16; // more threads than histograms, so some share one
+        int valuesPerThread = 10000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            long base = (t + 1) * 1000000L;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < valuesPerThread; i++) {
+                    recorder.record(base);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram merged = recorder.snapshot();
+        long total = (long) threadCount * valuesPerThread;
+
+        assertEquals(total, merged.getTotalCount());
+        assertEquals(threadCount * 1000000L, merged.getMaxValue());
+        assertEquals((threadCount + 1) / 2.0 * 1000000L, merged.getMean(), 1e-6);
+
+        long median = merged.getValueAtPercentile(0.5); // 8 ms: the first half are threads 1 to 8
+        assertEquals(8000000L, median, 8000000L / 1000.0);
+    }
+
+    @Test
+    void aSnapshotIsACopy() {
+
+        LatencyRecorder recorder = new LatencyRecorder(3, 2);
+        recorder.record(5000);
+        LatencyHistogram snapshot = recorder.snapshot();
+
+        recorder.record(7000);
+
+        assertEquals(1, snapshot.getTotalCount());
+        assertEquals(2, recorder.snapshot().getTotalCount());
+    }
+
+    @Test
+    void expectedIntervalAndAddedHistogramsAreMergedToo() {
+
+        LatencyRecorder recorder = new LatencyRecorder(3, 2);
+        recorder.recordWithExpectedInterval(10000000, 3000000); // 10, 7 and 4 ms
+
+        LatencyHistogram remote = new LatencyHistogram(3);
+        remote.recordValue(20000000);
+        recorder.add(remote);
+
+        LatencyHistogram merged = recorder.snapshot();
+        assertEquals(4, merged.getTotalCount());
+        assertEquals(20000000, merged.getMaxValue());
+        assertEquals(41000000 / 4.0, merged.getMean(), 1e-6);
+    }
+}
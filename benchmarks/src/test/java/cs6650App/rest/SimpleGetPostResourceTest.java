@@ -0,0 +1,66 @@
+package cs6650App.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.ws.rs.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+class SimpleGetPostResourceTest {
+
+    @Test
+    void aBatchSplitsIntoItsElements() {
+
+        assertEquals(Arrays.asList("\"a\"", "'b'", "3"), SimpleGetPostResource.splitJsonArray(" [\"a\", 'b' ,3] "));
+        assertEquals(Collections.emptyList(), SimpleGetPostResource.splitJsonArray("[]"));
+        assertEquals(Collections.singletonList("\"\""), SimpleGetPostResource.splitJsonArray("[\"\"]"));
+    }
+
+    @Test
+    void commasInsideStringsAndNestedValuesDontSplit() {
+
+        assertEquals(Arrays.asList("\"a,b]\"", "'c,\"d'", "{\"e\":[1,2]}", "[3,{\"f\":\"}\"}]"),
+           SimpleGetPostResource.splitJsonArray("[\"a,b]\",'c,\"d',{\"e\":[1,2]},[3,{\"f\":\"}\"}]]"));
+    }
+
+    @Test
+    void anEscapedQuoteDoesntEndTheString() {
+
+        assertEquals(Arrays.asList("\"a\\\",b\"", "\"c\\\\\"", "\"d\""),
+           SimpleGetPostResource.splitJsonArray("[\"a\\\",b\", \"c\\\\\", \"d\"]"));
+    }
+
+    @Test
+    void aBadBatchIsABadRequest() {
+
+        for (String batch : new String[] {"", "\"a\"", "[\"a\"", "[\"a]", "[{\"a\":[1]", "[1}]", "[\"a\\\"]"}) {
+            assertThrows(BadRequestException.class, () -> SimpleGetPostResource.splitJsonArray(batch), batch);
+        }
+    }
+
+    @Test
+    void utf16CharsAreCountedAsStringLengthWould() throws IOException {
+
+        String[] bodies = {
+            "",
+            "alive",
+            "café €", // 2- and 3-byte sequences are one char
+            "😀 smile 𝄞", // 4-byte sequences are a surrogate pair
+            "a😀é中😀z"
+        };
+
+        for (String body : bodies) {
+            byte[] utf8 = body.getBytes(StandardCharsets.UTF_8);
+            for (int bufferSize = 1; bufferSize <= 8; bufferSize++) { // sequences split across reads
+                assertEquals(body.length(),
+                   SimpleGetPostResource.countUtf16Chars(new ByteArrayInputStream(utf8), new byte[bufferSize]),
+                   body + " through a buffer of " + bufferSize);
+            }
+        }
+    }
+}
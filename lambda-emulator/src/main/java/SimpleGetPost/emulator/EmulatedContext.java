@@ -0,0 +1,85 @@
+package SimpleGetPost.emulator;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import java.util.UUID;
+
+/** The Context one emulated invocation hands its handler */
+class EmulatedContext implements Context {
+
+    private final String awsRequestId = UUID.randomUUID().toString();
+    private final String functionName;
+    private final String containerId;
+    private final int memoryLimitInMB;
+    private final long deadline; // nanoTime by which the invocation should be done
+
+    /** @param functionName name of the function, the handler's class name
+     * @param containerId id of the container running the invocation, used as the log stream
+     * @param memoryLimitInMB memory the function is configured with
+     * @param timeoutMillis the function's timeout
+     */
+    EmulatedContext(String functionName, String containerId, int memoryLimitInMB, long timeoutMillis) {
+
+        this.functionName = functionName;
+        this.containerId = containerId;
+        this.memoryLimitInMB = memoryLimitInMB;
+        this.deadline = System.nanoTime() + timeoutMillis * 1000000L;
+    }
+
+    public String getAwsRequestId() {
+
+        return awsRequestId;
+    }
+
+    public String getLogGroupName() {
+
+        return "/aws/lambda/" + functionName;
+    }
+
+    public String getLogStreamName() {
+
+        return containerId;
+    }
+
+    public String getFunctionName() {
+
+        return functionName;
+    }
+
+    public String getFunctionVersion() {
+
+        return "$LATEST";
+    }
+
+    public String getInvokedFunctionArn() {
+
+        return "arn:aws:lambda:local:000000000000:function:" + functionName;
+    }
+
+    public CognitoIdentity getIdentity() {
+
+        return null;
+    }
+
+    public ClientContext getClientContext() {
+
+        return null;
+    }
+
+    public int getRemainingTimeInMillis() {
+
+        return (int) Math.max(0, (deadline - System.nanoTime()) / 1000000L);
+    }
+
+    public int getMemoryLimitInMB() {
+
+        return memoryLimitInMB;
+    }
+
+    public LambdaLogger getLogger() {
+
+        return new EmulatedLogger(awsRequestId);
+    }
+}
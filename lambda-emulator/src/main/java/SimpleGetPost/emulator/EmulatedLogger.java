@@ -0,0 +1,21 @@
+package SimpleGetPost.emulator;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/** LambdaLogger that writes to the emulator's console, tagged with the request id
+ * like a CloudWatch log line
+ */
+class EmulatedLogger implements LambdaLogger {
+
+    private final String awsRequestId;
+
+    EmulatedLogger(String awsRequestId) {
+
+        this.awsRequestId = awsRequestId;
+    }
+
+    public void log(String message) {
+
+        System.out.println(awsRequestId + " " + message);
+    }
+}
@@ -0,0 +1,170 @@
+package SimpleGetPost.emulator;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/** One emulated Lambda container: a handler instance in a class loader of its own.
+ *
+ * Creating a container is a real cold start for the handler, not just a delay: its
+ * classes are loaded and initialized again in the new class loader, the handler is
+ * constructed, and POJO handlers get a new ObjectMapper that has to introspect their
+ * Request/Response types again. A container runs one invocation at a time and is
+ * reused for later invocations until it is recycled.
+ */
+class FunctionContainer {
+
+    private static final String HANDLER_PACKAGE = "SimpleGetPost.";
+    private static final String EMULATOR_PACKAGE = "SimpleGetPost.emulator.";
+
+    /** Loads the handler package itself instead of asking its parent, so every container
+     * gets its own copy of the handler classes. Everything else, the Lambda interfaces and
+     * Jackson included, is shared with the emulator.
+     */
+    private static class ContainerClassLoader extends URLClassLoader {
+
+        ContainerClassLoader(URL[] handlerClasspath, ClassLoader parent) {
+
+            super(handlerClasspath, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+
+            if (!name.startsWith(HANDLER_PACKAGE) || name.startsWith(EMULATOR_PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    loaded = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+    }
+
+    private final String containerId;
+    private final URLClassLoader classLoader;
+    private final Object handler;
+    private final ObjectMapper objectMapper; // POJO handlers only
+    private final JavaType inputType; // POJO handlers only
+    private final long initNanos;
+    private long lastUsed;
+
+    /** Cold-starts a container
+     * @param containerId id for the container's logs
+     * @param handlerClassName fully qualified class name of the handler
+     * @param handlerClasspath where the handler classes are loaded from
+     * @param simulatedBootMillis extra time to wait, standing in for the runtime's own boot
+     * @throws ReflectiveOperationException if the handler can't be loaded or constructed
+     */
+    FunctionContainer(String containerId, String handlerClassName, URL[] handlerClasspath,
+                      long simulatedBootMillis) throws ReflectiveOperationException {
+
+        long initStart = System.nanoTime();
+
+        if (simulatedBootMillis > 0) {
+            try {
+                Thread.sleep(simulatedBootMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        this.containerId = containerId;
+        this.classLoader = new ContainerClassLoader(handlerClasspath, FunctionContainer.class.getClassLoader());
+        this.handler = Class.forName(handlerClassName, true, classLoader).getDeclaredConstructor().newInstance();
+
+        if (handler instanceof RequestStreamHandler) {
+            this.objectMapper = null;
+            this.inputType = null;
+        } else if (handler instanceof RequestHandler) { // the runtime binds the event to handleRequest's input type
+            this.objectMapper = new ObjectMapper();
+            this.inputType = objectMapper.constructType(pojoInputType(handler.getClass()));
+        } else {
+            throw new IllegalArgumentException(handlerClassName + " is not a Lambda handler");
+        }
+
+        this.initNanos = System.nanoTime() - initStart;
+        this.lastUsed = System.nanoTime();
+    }
+
+    /** Finds the declared input type of a RequestHandler, e.g. Request for RequestHandler<Request, Response>,
+     * generics included, so a List<Request> is bound to Requests and not to maps
+     */
+    private static Type pojoInputType(Class<?> handlerClass) {
+
+        for (Method method : handlerClass.getMethods()) {
+            if (method.getName().equals("handleRequest") && !method.isBridge()
+                    && method.getParameterCount() == 2 && method.getParameterTypes()[1] == Context.class) {
+                return method.getGenericParameterTypes()[0];
+            }
+        }
+        return Object.class;
+    }
+
+    /** Invokes the handler with an event
+     * @param event the event's JSON
+     * @param context the invocation's context
+     * @return the handler's response JSON
+     * @throws IOException if the event can't be unmarshalled or the response written
+     */
+    @SuppressWarnings("unchecked")
+    byte[] invoke(byte[] event, Context context) throws IOException {
+
+        try {
+            if (objectMapper == null) {
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                ((RequestStreamHandler) handler).handleRequest(new ByteArrayInputStream(event), response, context);
+                return response.toByteArray();
+            }
+
+            Object input = objectMapper.readValue(event, inputType);
+            Object output = ((RequestHandler<Object, Object>) handler).handleRequest(input, context);
+            return objectMapper.writeValueAsBytes(output);
+
+        } finally {
+            lastUsed = System.nanoTime();
+        }
+    }
+
+    String getContainerId() {
+
+        return containerId;
+    }
+
+    long getInitNanos() {
+
+        return initNanos;
+    }
+
+    /** @return nanos since the container last finished an invocation */
+    long idleNanos() {
+
+        return System.nanoTime() - lastUsed;
+    }
+
+    /** Releases the container's class loader */
+    void recycle() {
+
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package SimpleGetPost.emulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** The containers of one function, scheduled roughly the way Lambda schedules them.
+ *
+ * An invocation takes an idle container if there is one and cold-starts a new one if
+ * not. Concurrency is capped by the function's reserved concurrency: past it, invocations
+ * are throttled instead of queued. Idle containers are reused most recently used first,
+ * so a steady load keeps using the same warm containers, and ones left idle past the
+ * idle timeout are recycled and have to be cold-started again.
+ */
+class FunctionPool {
+
+    /** The outcome of one invocation */
+    static class Invocation {
+
+        final int status; // HTTP status: 200, or 429 when throttled, 400 or 502 on errors
+        final byte[] response;
+        final boolean coldStart;
+        final String containerId;
+
+        Invocation(int status, byte[] response, boolean coldStart, String containerId) {
+
+            this.status = status;
+            this.response = response;
+            this.coldStart = coldStart;
+            this.containerId = containerId;
+        }
+    }
+
+    private final String functionName;
+    private final String handlerClassName;
+    private final URL[] handlerClasspath;
+    private final Semaphore concurrency;
+    private final long simulatedBootMillis;
+    private final long idleTimeoutNanos;
+    private final long timeoutMillis;
+    private final int memoryLimitInMB;
+
+    private final ConcurrentLinkedDeque<FunctionContainer> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger containersCreated = new AtomicInteger();
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder coldStarts = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder initNanos = new LongAdder();
+    private final LongAdder durationNanos = new LongAdder();
+
+    /** @param handlerClassName fully qualified class name of the handler
+     * @param handlerClasspath where the handler classes are loaded from
+     * @param concurrency most invocations run at once
+     * @param simulatedBootMillis extra time every cold start takes
+     * @param idleTimeoutSeconds how long a container is kept once idle
+     * @param timeoutMillis the function's timeout, as the Context reports it
+     * @param memoryLimitInMB the function's memory, as the Context reports it
+     */
+    FunctionPool(String handlerClassName, URL[] handlerClasspath, int concurrency, long simulatedBootMillis,
+                 long idleTimeoutSeconds, long timeoutMillis, int memoryLimitInMB) {
+
+        this.functionName = handlerClassName.substring(handlerClassName.lastIndexOf('.') + 1);
+        this.handlerClassName = handlerClassName;
+        this.handlerClasspath = handlerClasspath;
+        this.concurrency = new Semaphore(concurrency);
+        this.simulatedBootMillis = simulatedBootMillis;
+        this.idleTimeoutNanos = idleTimeoutSeconds * 1000000000L;
+        this.timeoutMillis = timeoutMillis;
+        this.memoryLimitInMB = memoryLimitInMB;
+    }
+
+    /** Invokes the function once
+     * @param event the event's JSON
+     * @return the outcome
+     */
+    Invocation invoke(byte[] event) {
+
+        if (!concurrency.tryAcquire()) {
+            throttles.increment();
+            return new Invocation(429, LambdaEmulator.errorJson("Rate Exceeded.", "TooManyRequestsException"), false, null);
+        }
+
+        FunctionContainer container = null;
+        boolean coldStart = false;
+
+        try {
+            container = takeIdleContainer();
+
+            if (container == null) {
+                coldStart = true;
+                coldStarts.increment();
+                container = new FunctionContainer(functionName + "-" + containersCreated.incrementAndGet(),
+                   handlerClassName, handlerClasspath, simulatedBootMillis);
+                initNanos.add(container.getInitNanos());
+            }
+
+            long startTime = System.nanoTime();
+            byte[] response;
+            int status = 200;
+
+            try {
+                response = container.invoke(event, new EmulatedContext(functionName, container.getContainerId(),
+                   memoryLimitInMB, timeoutMillis));
+            } catch (JsonProcessingException e) { // the event doesn't bind to the handler's input
+                errors.increment();
+                status = 400;
+                response = LambdaEmulator.errorJson(e.getOriginalMessage(), e.getClass().getSimpleName());
+            } catch (Exception e) {
+                errors.increment();
+                status = 502;
+                response = LambdaEmulator.errorJson(String.valueOf(e.getMessage()), e.getClass().getName());
+            }
+
+            durationNanos.add(System.nanoTime() - startTime);
+            invocations.increment();
+
+            idle.offerFirst(container);
+            return new Invocation(status, response, coldStart, container.getContainerId());
+
+        } catch (ReflectiveOperationException | RuntimeException e) { // the container failed to start
+            errors.increment();
+            return new Invocation(502, LambdaEmulator.errorJson("Init failed: " + e, e.getClass().getName()), coldStart,
+               null);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    /** Takes the most recently used idle container, recycling any that idled past the timeout */
+    private FunctionContainer takeIdleContainer() {
+
+        FunctionContainer container;
+        while ((container = idle.pollFirst()) != null) {
+            if (container.idleNanos() < idleTimeoutNanos) {
+                return container;
+            }
+            container.recycle();
+        }
+        return null;
+    }
+
+    /** @return the pool's counters as a JSON object */
+    String statsJson() {
+
+        long invoked = invocations.sum();
+        long cold = coldStarts.sum();
+
+        return "{\"function\":\"" + functionName + "\""
+           + ",\"invocations\":" + invoked
+           + ",\"coldStarts\":" + cold
+           + ",\"throttles\":" + throttles.sum()
+           + ",\"errors\":" + errors.sum()
+           + ",\"idleContainers\":" + idle.size()
+           + ",\"availableConcurrency\":" + concurrency.availablePermits()
+           + ",\"meanInitMs\":" + String.format("%.3f", cold == 0 ? 0 : initNanos.sum() / 1e6 / cold)
+           + ",\"meanDurationMs\":" + String.format("%.3f", invoked == 0 ? 0 : durationNanos.sum() / 1e6 / invoked)
+           + "}";
+    }
+
+    String getFunctionName() {
+
+        return functionName;
+    }
+}
@@ -0,0 +1,186 @@
+package SimpleGetPost.emulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Runs the Lambda handlers locally behind HTTP, the way API Gateway and the Lambda runtime
+ * would run them, so SimpleGetPostClient can load test them without deploying anything.
+ *
+ * POST (or GET) /GetHandler, /PostHandler, /GetStreamHandler or /PostStreamHandler invokes
+ * that handler with the request body as its event and answers with its response JSON. Each
+ * function gets its own pool of containers (see FunctionPool): a container is a fresh class
+ * loader with its own handler instance, so the first invocation on it is a real cold start.
+ * GET /stats answers every function's counters.
+ *
+ *   java -jar target/lambda-emulator.jar [port=9000]
+ *        [--concurrency=100] [--coldStartMs=0] [--idleTimeoutSec=300]
+ *        [--timeoutMs=3000] [--memoryMb=512] [--handlerJar=../Lambda/target/lambda-get-post-1.0-SNAPSHOT.jar]
+ *
+ * --coldStartMs adds to every cold start, standing in for the part of a real one (starting
+ * the sandbox and the JVM) that an emulated container doesn't go through. --handlerJar loads
+ * the handlers from a jar, e.g. the Lambda module's stream jar, instead of the ones built in.
+ */
+public class LambdaEmulator {
+
+    private static final String HANDLER_PACKAGE = "SimpleGetPost.";
+    private static final byte[] EMPTY_EVENT = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private static int concurrency = 100; // per function, like reserved concurrency
+    private static long coldStartMillis = 0;
+    private static long idleTimeoutSeconds = 300;
+    private static long timeoutMillis = 3000;
+    private static int memoryMb = 512;
+    private static URL[] handlerClasspath;
+    private static URLClassLoader handlerLookup; // only finds handler classes, never loads them
+
+    private static final Map<String, FunctionPool> functions = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+
+        int port = 9000;
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (!arg.startsWith("--")) {
+                port = Integer.parseInt(arg);
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(value);
+            } else if (arg.startsWith("--coldStartMs=")) {
+                coldStartMillis = Long.parseLong(value);
+            } else if (arg.startsWith("--idleTimeoutSec=")) {
+                idleTimeoutSeconds = Long.parseLong(value);
+            } else if (arg.startsWith("--timeoutMs=")) {
+                timeoutMillis = Long.parseLong(value);
+            } else if (arg.startsWith("--memoryMb=")) {
+                memoryMb = Integer.parseInt(value);
+            } else if (arg.startsWith("--handlerJar=")) {
+                handlerClasspath = new URL[] {new File(value).toURI().toURL()};
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("--concurrency must be at least 1");
+        }
+        if (handlerClasspath == null) { // the handlers built into the emulator's own jar
+            handlerClasspath = new URL[] {LambdaEmulator.class.getProtectionDomain().getCodeSource().getLocation()};
+        }
+        handlerLookup = new URLClassLoader(handlerClasspath, null);
+
+        // the server writes a response's headers and body separately, and on a kept-alive connection
+        // Nagle's algorithm holds the body back for the client's delayed ACK, ~40 ms a request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", LambdaEmulator::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            executor.shutdown();
+            for (FunctionPool function : functions.values()) {
+                System.out.println(function.statsJson());
+            }
+        }));
+
+        System.out.println("Lambda emulator listening on http://localhost:" + port + "/<HandlerName>"
+           + " (concurrency " + concurrency + ", cold start +" + coldStartMillis + " ms)");
+    }
+
+    /** Routes a request to a function, or to the stats */
+    private static void handle(HttpExchange exchange) throws IOException {
+
+        try (exchange) {
+
+            String name = exchange.getRequestURI().getPath().substring(1);
+
+            if (name.equals("stats")) {
+                StringJoiner stats = new StringJoiner(",", "[", "]");
+                for (FunctionPool function : functions.values()) {
+                    stats.add(function.statsJson());
+                }
+                respond(exchange, 200, stats.toString().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            if (name.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('.') >= 0
+                    || handlerLookup.findResource(HANDLER_PACKAGE.replace('.', '/') + name + ".class") == null) {
+                respond(exchange, 404, errorJson("Function not found: " + name, "ResourceNotFoundException"));
+                return;
+            }
+
+            byte[] event;
+            try (InputStream body = exchange.getRequestBody()) {
+                event = body.readAllBytes();
+            }
+            if (event.length == 0) { // e.g. the client's GET
+                event = EMPTY_EVENT;
+            }
+
+            FunctionPool function = functions.computeIfAbsent(name, handlerName -> new FunctionPool(
+               HANDLER_PACKAGE + handlerName, handlerClasspath, concurrency, coldStartMillis, idleTimeoutSeconds,
+               timeoutMillis, memoryMb));
+
+            FunctionPool.Invocation invocation = function.invoke(event);
+
+            exchange.getResponseHeaders().set("X-Emulator-Cold-Start", String.valueOf(invocation.coldStart));
+            if (invocation.containerId != null) {
+                exchange.getResponseHeaders().set("X-Emulator-Container", invocation.containerId);
+            }
+            respond(exchange, invocation.status, invocation.response);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /** Builds the error body Lambda answers with
+     * @param message the error's message
+     * @param type the error's type
+     * @return {"errorMessage": message, "errorType": type} as JSON
+     */
+    static byte[] errorJson(String message, String type) {
+
+        return ("{\"errorMessage\":\"" + escape(message) + "\",\"errorType\":\"" + escape(type) + "\"}")
+           .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String value) {
+
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}